@@ -9,6 +9,7 @@ plugins {
     alias(libs.plugins.changelog) // Gradle Changelog Plugin
     alias(libs.plugins.qodana) // Gradle Qodana Plugin
     alias(libs.plugins.kover) // Gradle Kover Plugin
+    alias(libs.plugins.jmh) // Gradle JMH Plugin
 }
 
 group = providers.gradleProperty("pluginGroup").get()
@@ -127,6 +128,26 @@ kover {
     }
 }
 
+// Configure Gradle JMH Plugin - read more: https://github.com/melix/jmh-gradle-plugin
+// Benchmarks in src/jmh run against the same IntelliJ Platform classpath as the tests
+sourceSets {
+    named("jmh") {
+        compileClasspath += sourceSets.test.get().compileClasspath
+        runtimeClasspath += sourceSets.test.get().runtimeClasspath
+    }
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    // Run a subset with e.g. -PjmhIncludes=MamlLexerBenchmark
+    includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(emptyList())
+    // Add profilers with e.g. -PjmhProfilers=gc to measure allocations
+    profilers = providers.gradleProperty("jmhProfilers").map { it.split(',') }.orElse(emptyList())
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+    jvmArgsAppend = listOf("-Djava.awt.headless=true")
+}
+
 tasks {
     wrapper {
         gradleVersion = providers.gradleProperty("gradleVersion").get()
@@ -0,0 +1,67 @@
+package com.davidseptimus.maml.benchmarks
+
+import com.davidseptimus.maml.batch.MamlBatchProcessor
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.openapi.vfs.LocalFileSystem
+import com.intellij.openapi.vfs.VirtualFile
+import org.openjdk.jmh.annotations.*
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+/**
+ * Files per second formatted and validated by [MamlBatchProcessor] with different numbers of
+ * worker threads, over 200 generated configuration files that all need reformatting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(MamlBatchBenchmark.FILE_COUNT)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+open class MamlBatchBenchmark {
+
+    companion object {
+        const val FILE_COUNT = 200
+    }
+
+    @Param("1", "2", "4", "8")
+    var threads: Int = 1
+
+    private val environment = MamlCodeInsightEnvironment()
+    private lateinit var directory: Path
+    private lateinit var files: List<VirtualFile>
+    private lateinit var processor: MamlBatchProcessor
+
+    @Setup
+    fun setUp() {
+        environment.start()
+        directory = Files.createTempDirectory("maml-batch")
+        files = (0 until FILE_COUNT).map { index ->
+            val path = directory.resolve("config$index.maml")
+            Files.writeString(path, configFile(index))
+            LocalFileSystem.getInstance().refreshAndFindFileByNioFile(path)!!
+        }
+        // Files are not written back, so every invocation formats the same text
+        processor = MamlBatchProcessor(environment.project(), MamlBatchProcessor.Options(threads = threads))
+    }
+
+    @TearDown
+    fun tearDown() {
+        environment.stop()
+        FileUtil.delete(directory)
+    }
+
+    @Benchmark
+    fun process(): Int = processor.process(files).changedCount
+
+    private fun configFile(index: Int): String = buildString {
+        appendLine("{")
+        appendLine("name:\"service-$index\",")
+        repeat(50) { i ->
+            appendLine("endpoint$i:{path:\"/api/$i\",methods:[\"GET\",\"POST\"],timeout:${i * 10}}")
+        }
+        append("}")
+    }
+}
@@ -0,0 +1,68 @@
+package com.davidseptimus.maml.benchmarks
+
+import com.davidseptimus.maml.formatter.MamlCodeStyleSettings
+import com.intellij.application.options.CodeStyle
+import com.intellij.codeInsight.daemon.impl.HighlightInfo
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.PsiFile
+import com.intellij.psi.codeStyle.CodeStyleManager
+import com.intellij.testFramework.LightProjectDescriptor
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory
+import com.intellij.testFramework.fixtures.impl.LightTempDirTestFixtureImpl
+import com.intellij.testFramework.runInEdtAndGet
+import com.intellij.testFramework.runInEdtAndWait
+
+/**
+ * Light project with the plugin loaded, set up the same way as the platform tests, for benchmarking
+ * editor features such as highlighting.
+ */
+class MamlCodeInsightEnvironment {
+
+    private lateinit var fixture: CodeInsightTestFixture
+
+    fun start() = runInEdtAndWait {
+        val factory = IdeaTestFixtureFactory.getFixtureFactory()
+        val projectFixture = factory.createLightFixtureBuilder(LightProjectDescriptor.EMPTY_PROJECT_DESCRIPTOR, "benchmark").fixture
+        fixture = factory.createCodeInsightFixture(projectFixture, LightTempDirTestFixtureImpl(true))
+        fixture.setUp()
+    }
+
+    fun stop() = runInEdtAndWait {
+        fixture.tearDown()
+    }
+
+    fun configure(text: String) = runInEdtAndWait {
+        fixture.configureByText("benchmark.maml", text)
+    }
+
+    fun highlight(): List<HighlightInfo> = runInEdtAndGet {
+        fixture.doHighlighting()
+    }
+
+    fun file(): PsiFile = runInEdtAndGet {
+        fixture.file
+    }
+
+    fun project(): Project = fixture.project
+
+    fun addFile(path: String, text: String): VirtualFile = runInEdtAndGet {
+        fixture.addFileToProject(path, text).virtualFile
+    }
+
+    /**
+     * Reformats the whole file with the MAML settings changed by [configure] and returns the new text.
+     */
+    fun reformat(configure: (MamlCodeStyleSettings) -> Unit): String = runInEdtAndGet {
+        val project = fixture.project
+        CodeStyle.doWithTemporarySettings(project, CodeStyle.getSettings(project)) { settings ->
+            configure(settings.getCustomSettings(MamlCodeStyleSettings::class.java))
+            WriteCommandAction.runWriteCommandAction(project) {
+                CodeStyleManager.getInstance(project).reformat(fixture.file)
+            }
+        }
+        fixture.editor.document.text
+    }
+}
@@ -0,0 +1,121 @@
+package com.davidseptimus.maml.benchmarks
+
+/**
+ * Generated MAML documents used as benchmark input.
+ */
+enum class MamlCorpus(private val generator: () -> String) {
+
+    /**
+     * Many objects nested 100 levels deep, each level with a few scalar members.
+     */
+    DEEPLY_NESTED_OBJECTS({
+        buildString {
+            appendLine("[")
+            repeat(100) { tree ->
+                repeat(NESTING_DEPTH) { level ->
+                    append("{\n  name: \"tree$tree-level$level\"\n  enabled: true\n  weight: $level.5\n  child: ")
+                }
+                append("null")
+                repeat(NESTING_DEPTH) { append("\n}") }
+                appendLine()
+            }
+            append("]")
+        }
+    }),
+
+    /**
+     * A single array with 100k mixed scalar elements.
+     */
+    LARGE_ARRAY({
+        buildString {
+            appendLine("[")
+            for (i in 0 until 100_000) {
+                when (i % 4) {
+                    0 -> append(i)
+                    1 -> append("\"item-").append(i).append('"')
+                    2 -> append(if (i % 3 == 0) "true" else "false")
+                    else -> append(i).append(".25e-3")
+                }
+                append(if (i % 10 == 9) "\n" else ", ")
+            }
+            append("]")
+        }
+    }),
+
+    /**
+     * An object with two arrays of 25k small objects each.
+     */
+    ARRAYS_OF_OBJECTS({
+        buildString {
+            appendLine("{")
+            for (name in listOf("services", "endpoints")) {
+                appendLine("  $name: [")
+                repeat(25_000) { i ->
+                    appendLine("    { id: $i, name: \"$name-$i\", ports: [80, 443], meta: { owner: \"team-${i % 7}\" } }")
+                }
+                appendLine("  ]")
+            }
+            append("}")
+        }
+    }),
+
+    /**
+     * An object whose main value is a multiline string of a few megabytes.
+     */
+    HUGE_MULTILINE_STRING({
+        buildString {
+            appendLine("{")
+            appendLine("  name: \"prompt\"")
+            appendLine("  text: \"\"\"")
+            repeat(50_000) { line ->
+                append("    Line $line of prose with \"quotes\", {braces}, [brackets] and a path/to/file.maml")
+                appendLine()
+            }
+            appendLine("  \"\"\"")
+            appendLine("  tags: [\"long\", \"prose\"]")
+            append("}")
+        }
+    }),
+
+    /**
+     * A flat object where every member is preceded by several comment lines.
+     */
+    COMMENT_HEAVY({
+        buildString {
+            appendLine("{")
+            repeat(20_000) { i ->
+                appendLine("  # Setting $i")
+                appendLine("  # Describes what setting $i does and why it has this value")
+                appendLine("  #see: https://example.com/settings/$i")
+                appendLine("  setting$i: \"value $i\" # trailing comment")
+            }
+            append("}")
+        }
+    }),
+
+    /**
+     * A flat object with 10k keys, mixing quoted keys, escapes, colors, URLs and missing commas.
+     */
+    MANY_KEYS({
+        buildString {
+            appendLine("{")
+            repeat(10_000) { i ->
+                when (i % 5) {
+                    0 -> appendLine("  \"key $i\": \"line\\nbreak \\t tab \\u00e9\"")
+                    1 -> appendLine("  color$i: \"#${"%06x".format(i * 97 % 0xFFFFFF)}\"")
+                    2 -> appendLine("  url$i: \"https://example.com/$i\" # see https://example.com/docs/$i")
+                    3 -> appendLine("  list$i: [1, 2 3, \"rgb(1, 2, 3)\"]")
+                    else -> appendLine("  flag$i: tru")
+                }
+            }
+            append("}")
+        }
+    });
+
+    val text: String by lazy { generator() }
+}
+
+/**
+ * Stays well below the recursion limit of the generated parser.
+ */
+private const val NESTING_DEPTH = 100
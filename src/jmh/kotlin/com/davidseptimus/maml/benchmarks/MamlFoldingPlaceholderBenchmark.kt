@@ -0,0 +1,57 @@
+package com.davidseptimus.maml.benchmarks
+
+import com.davidseptimus.maml.editor.MamlFoldingBuilder
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.lang.ASTNode
+import com.intellij.openapi.application.runReadAction
+import com.intellij.psi.util.PsiTreeUtil
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Time to build the folding placeholder of a multiline string of 1k to 1M lines, which should not
+ * depend on the length of the string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class MamlFoldingPlaceholderBenchmark {
+
+    @Param("1000", "100000", "1000000")
+    var lines: Int = 1000
+
+    private val environment = MamlCodeInsightEnvironment()
+    private val builder = MamlFoldingBuilder()
+    private lateinit var string: ASTNode
+
+    @Setup
+    fun setUp() {
+        environment.start()
+        environment.configure(buildString {
+            appendLine("{")
+            append("  text: \"\"\"Summary of the document with more words than the preview shows")
+            repeat(lines) { line ->
+                appendLine()
+                append("    Line $line of prose with \"quotes\", {braces} and [brackets]")
+            }
+            appendLine()
+            appendLine("  \"\"\"")
+            append("}")
+        })
+        val file = environment.file()
+        string = runReadAction {
+            PsiTreeUtil.collectElements(file) { it.node.elementType == MamlTypes.MULTILINE_STRING }.single().node
+        }
+    }
+
+    @TearDown
+    fun tearDown() {
+        environment.stop()
+    }
+
+    @Benchmark
+    fun placeholder(): String = builder.getPlaceholderText(string)
+}
@@ -0,0 +1,38 @@
+package com.davidseptimus.maml.benchmarks
+
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Time of reformatting the 100k-element array with comma removal enabled, which turns every comma
+ * into a newline or removes it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+open class MamlFormatBenchmark {
+
+    private val environment = MamlCodeInsightEnvironment()
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        environment.start()
+    }
+
+    @Setup(Level.Invocation)
+    fun restoreText() {
+        // Each reformat removes the commas, so every invocation starts from the original text
+        environment.configure(MamlCorpus.LARGE_ARRAY.text)
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        environment.stop()
+    }
+
+    @Benchmark
+    fun reformatRemovingCommas(): Int = environment.reformat { it.REMOVE_COMMAS = true }.length
+}
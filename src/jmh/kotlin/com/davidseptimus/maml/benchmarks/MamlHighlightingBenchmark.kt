@@ -0,0 +1,34 @@
+package com.davidseptimus.maml.benchmarks
+
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Time of a full highlighting pass (annotators and inspections) over a file with 10k keys.
+ *
+ * Run with `-PjmhProfilers=gc` to also report the allocation rate per pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+open class MamlHighlightingBenchmark {
+
+    private val environment = MamlCodeInsightEnvironment()
+
+    @Setup
+    fun setUp() {
+        environment.start()
+        environment.configure(MamlCorpus.MANY_KEYS.text)
+    }
+
+    @TearDown
+    fun tearDown() {
+        environment.stop()
+    }
+
+    @Benchmark
+    fun highlight(): Int = environment.highlight().size
+}
@@ -0,0 +1,45 @@
+package com.davidseptimus.maml.benchmarks
+
+import com.davidseptimus.maml.highlighting.MamlHighlightingLexer
+import com.davidseptimus.maml.lang.MamlLexerAdapter
+import com.intellij.lexer.Lexer
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Throughput of [com.davidseptimus.maml.lang.MamlLexer] through the parsing and highlighting adapters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class MamlLexerBenchmark {
+
+    @Param
+    lateinit var corpus: MamlCorpus
+
+    private lateinit var text: String
+
+    @Setup
+    fun setUp() {
+        text = corpus.text
+    }
+
+    @Benchmark
+    fun parsingLexer(): Int = countTokens(MamlLexerAdapter())
+
+    @Benchmark
+    fun highlightingLexer(): Int = countTokens(MamlHighlightingLexer())
+
+    private fun countTokens(lexer: Lexer): Int {
+        lexer.start(text)
+        var count = 0
+        while (lexer.tokenType != null) {
+            count++
+            lexer.advance()
+        }
+        return count
+    }
+}
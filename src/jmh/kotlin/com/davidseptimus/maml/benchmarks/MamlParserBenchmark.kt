@@ -0,0 +1,52 @@
+package com.davidseptimus.maml.benchmarks
+
+import com.davidseptimus.maml.lang.FILE
+import com.davidseptimus.maml.lang.MamlLexerAdapter
+import com.davidseptimus.maml.lang.MamlParserDefinition
+import com.davidseptimus.maml.lang.parser.MamlParser
+import com.intellij.lang.ASTNode
+import com.intellij.lang.PsiBuilderFactory
+import com.intellij.psi.SyntaxTraverser
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Parse time of [MamlParser] on a [com.intellij.lang.PsiBuilder], and the cost of building the full PSI tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class MamlParserBenchmark {
+
+    @Param
+    lateinit var corpus: MamlCorpus
+
+    private val environment = MamlParsingEnvironment()
+    private lateinit var text: String
+
+    @Setup
+    fun setUp() {
+        environment.start()
+        text = corpus.text
+    }
+
+    @TearDown
+    fun tearDown() {
+        environment.stop()
+    }
+
+    @Benchmark
+    fun parse(): ASTNode {
+        val builder = PsiBuilderFactory.getInstance().createBuilder(MamlParserDefinition(), MamlLexerAdapter(), text)
+        return MamlParser().parse(FILE, builder)
+    }
+
+    @Benchmark
+    fun createPsi(): Int {
+        val file = environment.createFile(text)
+        return SyntaxTraverser.psiTraverser(file).traverse().size()
+    }
+}
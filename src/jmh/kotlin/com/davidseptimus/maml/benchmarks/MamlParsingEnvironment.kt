@@ -0,0 +1,21 @@
+package com.davidseptimus.maml.benchmarks
+
+import com.davidseptimus.maml.lang.MamlParserDefinition
+import com.intellij.psi.PsiFile
+import com.intellij.testFramework.ParsingTestCase
+
+/**
+ * Mock IntelliJ Platform environment for building PSI outside the IDE, set up the same way as the parser tests.
+ */
+class MamlParsingEnvironment : ParsingTestCase("", "maml", MamlParserDefinition()) {
+
+    init {
+        name = "benchmark"
+    }
+
+    fun start() = setUp()
+
+    fun stop() = tearDown()
+
+    fun createFile(text: String): PsiFile = createPsiFile("benchmark", text)
+}
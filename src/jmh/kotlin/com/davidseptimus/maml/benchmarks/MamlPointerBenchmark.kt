@@ -0,0 +1,60 @@
+package com.davidseptimus.maml.benchmarks
+
+import com.davidseptimus.maml.json.MamlJsonPsiWalker
+import com.davidseptimus.maml.lang.psi.MamlKey
+import com.intellij.openapi.application.runReadAction
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiManager
+import com.intellij.psi.util.PsiTreeUtil
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Time to compute the JSON pointers of 1000 keys spread over arrays of 25k objects, as done by
+ * completion and schema resolution, both right after a PSI change and with cached paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class MamlPointerBenchmark {
+
+    private val environment = MamlCodeInsightEnvironment()
+    private lateinit var psiManager: PsiManager
+    private lateinit var keys: List<PsiElement>
+
+    @Setup
+    fun setUp() {
+        environment.start()
+        environment.configure(MamlCorpus.ARRAYS_OF_OBJECTS.text)
+        val file = environment.file()
+        psiManager = file.manager
+        keys = runReadAction {
+            val allKeys = PsiTreeUtil.findChildrenOfType(file, MamlKey::class.java).toList()
+            allKeys.filterIndexed { index, _ -> index % (allKeys.size / SAMPLED_KEYS) == 0 }
+        }
+    }
+
+    @TearDown
+    fun tearDown() {
+        environment.stop()
+    }
+
+    @Benchmark
+    fun findPositionsAfterChange(): Int {
+        // Invalidates cached paths and array indices like any PSI change does
+        psiManager.dropPsiCaches()
+        return findPositions()
+    }
+
+    @Benchmark
+    fun findPositionsCached(): Int = findPositions()
+
+    private fun findPositions(): Int = runReadAction {
+        keys.sumOf { MamlJsonPsiWalker.findPosition(it, true).size() }
+    }
+}
+
+private const val SAMPLED_KEYS = 1000
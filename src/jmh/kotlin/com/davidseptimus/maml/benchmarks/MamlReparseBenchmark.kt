@@ -0,0 +1,94 @@
+package com.davidseptimus.maml.benchmarks
+
+import com.davidseptimus.maml.lang.FILE
+import com.davidseptimus.maml.lang.MamlLexerAdapter
+import com.davidseptimus.maml.lang.MamlParserDefinition
+import com.davidseptimus.maml.lang.parser.MamlParser
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.lang.ASTNode
+import com.intellij.lang.PsiBuilderFactory
+import com.intellij.psi.tree.IElementType
+import com.intellij.psi.tree.IReparseableElementType
+import com.intellij.psi.tree.IReparseableLeafElementType
+import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.psi.util.elementType
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Cost of an edit inside a multiline string or a nested object with incremental reparsing,
+ * compared to reparsing the whole edited file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class MamlReparseBenchmark {
+
+    private val environment = MamlParsingEnvironment()
+
+    private lateinit var stringLeaf: ASTNode
+    private lateinit var editedStringText: String
+    private lateinit var editedStringFile: String
+
+    private lateinit var innermostObject: ASTNode
+    private lateinit var editedObjectText: String
+    private lateinit var editedObjectFile: String
+
+    @Setup
+    fun setUp() {
+        environment.start()
+
+        val stringFile = MamlCorpus.HUGE_MULTILINE_STRING.text
+        stringLeaf = findLast(environment.createFile(stringFile).node, MamlTypes.MULTILINE_STRING)
+        val stringEdit = stringLeaf.text.length / 2
+        editedStringText = stringLeaf.text.replaceRange(stringEdit, stringEdit, " inserted")
+        editedStringFile = stringFile.replaceRange(
+            stringLeaf.startOffset + stringEdit, stringLeaf.startOffset + stringEdit, " inserted"
+        )
+
+        val objectFile = MamlCorpus.DEEPLY_NESTED_OBJECTS.text
+        innermostObject = findLast(environment.createFile(objectFile).node, MamlTypes.OBJECT)
+        val objectEdit = innermostObject.text.indexOf("enabled")
+        editedObjectText = innermostObject.text.replaceRange(objectEdit, objectEdit, "added: 1\n  ")
+        editedObjectFile = objectFile.replaceRange(
+            innermostObject.startOffset + objectEdit, innermostObject.startOffset + objectEdit, "added: 1\n  "
+        )
+    }
+
+    @TearDown
+    fun tearDown() {
+        environment.stop()
+    }
+
+    @Benchmark
+    fun reparseStringLeaf(): ASTNode? {
+        @Suppress("UNCHECKED_CAST")
+        val type = stringLeaf.elementType as IReparseableLeafElementType<ASTNode>
+        return type.reparseLeaf(stringLeaf, editedStringText)
+    }
+
+    @Benchmark
+    fun reparseFileAfterStringEdit(): ASTNode = parse(FILE, editedStringFile)
+
+    @Benchmark
+    fun reparseObject(): ASTNode? {
+        val type = innermostObject.elementType as IReparseableElementType
+        if (!type.isReparseable(innermostObject, editedObjectText, type.language, innermostObject.psi.project)) return null
+        return parse(type, editedObjectText)
+    }
+
+    @Benchmark
+    fun reparseFileAfterObjectEdit(): ASTNode = parse(FILE, editedObjectFile)
+
+    private fun parse(type: IElementType, text: CharSequence): ASTNode {
+        val builder = PsiBuilderFactory.getInstance().createBuilder(MamlParserDefinition(), MamlLexerAdapter(), text)
+        return MamlParser().parse(type, builder)
+    }
+
+    private fun findLast(root: ASTNode, type: IElementType): ASTNode {
+        return PsiTreeUtil.collectElements(root.psi) { it.elementType == type }.last().node
+    }
+}
@@ -0,0 +1,94 @@
+package com.davidseptimus.maml.benchmarks
+
+import com.davidseptimus.maml.inspections.MamlJsonSchemaComplianceInspection
+import com.intellij.codeInspection.ex.InspectionEngine
+import com.intellij.codeInspection.ex.LocalInspectionToolWrapper
+import com.intellij.openapi.application.runReadAction
+import com.intellij.openapi.progress.EmptyProgressIndicator
+import com.intellij.psi.PsiFile
+import com.intellij.util.PairProcessor
+import com.jetbrains.jsonSchema.ide.JsonSchemaService
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Time to validate the arrays of 50k objects against a schema, once with a schema the compiled
+ * validator supports and once with the same schema wrapped in a `not` it does not support, which
+ * is left to the generic JSON schema checker. Every object has a problem, so reporting is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+open class MamlSchemaValidationBenchmark {
+
+    @Param("compiled", "generic")
+    var validator: String = "compiled"
+
+    private val environment = MamlCodeInsightEnvironment()
+    private lateinit var file: PsiFile
+    private lateinit var inspection: LocalInspectionToolWrapper
+
+    @Setup
+    fun setUp() {
+        environment.start()
+        val schemaText = if (validator == "compiled") SCHEMA else """{ "allOf": [$SCHEMA], "not": { "type": "null" } }"""
+        val schemaFile = environment.addFile("schema.json", schemaText)
+        environment.configure(MamlCorpus.ARRAYS_OF_OBJECTS.text)
+        file = environment.file()
+        val schema = runReadAction {
+            JsonSchemaService.Impl.get(environment.project()).getSchemaObjectForSchemaFile(schemaFile)!!
+        }
+        inspection = LocalInspectionToolWrapper(MamlJsonSchemaComplianceInspection.forSchema(schema, false))
+    }
+
+    @TearDown
+    fun tearDown() {
+        environment.stop()
+    }
+
+    @Benchmark
+    fun validate(): Int = runReadAction {
+        InspectionEngine.inspectEx(
+            listOf(inspection),
+            file,
+            file.textRange,
+            file.textRange,
+            false,
+            false,
+            true,
+            EmptyProgressIndicator(),
+            PairProcessor { _, _ -> true }
+        ).values.sumOf { it.size }
+    }
+
+    companion object {
+        private val ITEM = """
+            {
+              "type": "object",
+              "properties": {
+                "id": { "type": "integer", "minimum": 0 },
+                "name": { "type": "string", "pattern": "^[a-z]+-[0-9]+$" },
+                "ports": { "type": "array", "items": { "type": "integer", "maximum": 65535 } },
+                "meta": {
+                  "type": "object",
+                  "properties": { "owner": { "enum": ["team-0", "team-1", "team-2", "team-3", "team-4", "team-5"] } }
+                }
+              },
+              "required": ["id", "name", "region"]
+            }
+        """.trimIndent()
+
+        private val SCHEMA = """
+            {
+              "type": "object",
+              "properties": {
+                "services": { "type": "array", "items": $ITEM },
+                "endpoints": { "type": "array", "items": $ITEM }
+              }
+            }
+        """.trimIndent()
+    }
+}
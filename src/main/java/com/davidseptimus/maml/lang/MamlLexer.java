@@ -22,6 +22,7 @@ public class MamlLexer implements FlexLexer {
 
   /** lexical states */
   public static final int YYINITIAL = 0;
+  public static final int IN_MULTILINE_STRING = 2;
 
   /**
    * ZZ_LEXSTATE[l] is the state in the DFA for the lexical state l
@@ -30,7 +31,7 @@ public class MamlLexer implements FlexLexer {
    * l is of the form l = 2*k, k a non negative integer
    */
   private static final int ZZ_LEXSTATE[] = {
-     0, 0
+     0,  0,  1, 1
   };
 
   /**
@@ -67,13 +68,13 @@ public class MamlLexer implements FlexLexer {
   private static final int [] ZZ_CMAP_BLOCKS = zzUnpackcmap_blocks();
 
   private static final String ZZ_CMAP_BLOCKS_PACKED_0 =
-    "\11\0\1\1\1\2\2\3\1\2\22\0\1\4\1\5"+
-    "\1\6\1\7\7\5\1\10\1\11\1\12\1\13\1\5"+
-    "\1\14\11\15\1\16\6\5\4\17\1\20\25\17\1\21"+
-    "\1\22\1\23\1\5\1\17\1\5\1\24\3\17\1\25"+
-    "\1\26\5\17\1\27\1\17\1\30\3\17\1\31\1\32"+
-    "\1\33\1\34\5\17\1\35\1\5\1\36\7\5\1\37"+
-    "\u01a2\5\2\37\326\5\u0100\37";
+    "\11\0\1\1\1\2\2\3\1\4\22\0\1\5\1\6"+
+    "\1\7\1\10\7\6\1\11\1\12\1\13\1\14\1\6"+
+    "\1\15\11\16\1\17\6\6\4\20\1\21\25\20\1\22"+
+    "\1\23\1\24\1\6\1\20\1\6\1\25\3\20\1\26"+
+    "\1\27\5\20\1\30\1\20\1\31\3\20\1\32\1\33"+
+    "\1\34\1\35\5\20\1\36\1\6\1\37\7\6\1\40"+
+    "\u01a2\6\2\40\326\6\u0100\40";
 
   private static int [] zzUnpackcmap_blocks() {
     int [] result = new int[1024];
@@ -100,14 +101,14 @@ public class MamlLexer implements FlexLexer {
   private static final int [] ZZ_ACTION = zzUnpackAction();
 
   private static final String ZZ_ACTION_PACKED_0 =
-    "\1\0\1\1\2\2\1\3\1\4\1\5\1\6\2\7"+
-    "\1\10\1\6\1\11\1\12\3\6\1\13\1\14\1\3"+
-    "\1\15\2\0\4\6\1\15\1\16\1\7\1\0\1\6"+
-    "\1\7\3\6\1\0\1\16\1\0\1\7\1\6\1\17"+
-    "\1\20\2\0\1\21\1\16\1\0";
+    "\2\0\1\1\2\2\1\3\1\4\1\5\1\6\2\7"+
+    "\1\10\1\6\1\11\1\12\3\6\1\13\1\14\5\15"+
+    "\1\3\1\16\2\0\4\6\1\0\1\15\1\0\1\16"+
+    "\1\0\1\17\1\20\1\7\1\0\1\6\1\7\3\6"+
+    "\1\0\1\21\2\0\1\7\1\6\1\22\1\23\1\24";
 
   private static int [] zzUnpackAction() {
-    int [] result = new int[48];
+    int [] result = new int[56];
     int offset = 0;
     offset = zzUnpackAction(ZZ_ACTION_PACKED_0, offset, result);
     return result;
@@ -132,15 +133,16 @@ public class MamlLexer implements FlexLexer {
   private static final int [] ZZ_ROWMAP = zzUnpackRowMap();
 
   private static final String ZZ_ROWMAP_PACKED_0 =
-    "\0\0\0\40\0\100\0\140\0\200\0\240\0\40\0\300"+
-    "\0\340\0\u0100\0\40\0\u0120\0\40\0\40\0\u0140\0\u0160"+
-    "\0\u0180\0\40\0\40\0\u01a0\0\u01c0\0\u01e0\0\u0200\0\u0220"+
-    "\0\u0240\0\u0260\0\u0280\0\40\0\u02a0\0\u02c0\0\u02e0\0\u0300"+
-    "\0\u0300\0\u0320\0\u0340\0\u0360\0\u0380\0\u03a0\0\u03c0\0\u02e0"+
-    "\0\u03e0\0\u0120\0\u0120\0\u0400\0\u0420\0\u0120\0\40\0\u0440";
+    "\0\0\0\41\0\102\0\143\0\204\0\245\0\306\0\102"+
+    "\0\347\0\u0108\0\u0129\0\102\0\u014a\0\102\0\102\0\u016b"+
+    "\0\u018c\0\u01ad\0\102\0\102\0\u01ce\0\102\0\u01ef\0\u0210"+
+    "\0\u0231\0\u0252\0\u0273\0\u0294\0\u02b5\0\u02d6\0\u02f7\0\u0318"+
+    "\0\u0339\0\u035a\0\u037b\0\u039c\0\u03bd\0\u03bd\0\102\0\102"+
+    "\0\u03de\0\u03ff\0\u0420\0\u0420\0\u0441\0\u0462\0\u0483\0\u04a4"+
+    "\0\102\0\u04c5\0\u04e6\0\u03ff\0\u0507\0\u014a\0\u014a\0\u014a";
 
   private static int [] zzUnpackRowMap() {
-    int [] result = new int[48];
+    int [] result = new int[56];
     int offset = 0;
     offset = zzUnpackRowMap(ZZ_ROWMAP_PACKED_0, offset, result);
     return result;
@@ -163,40 +165,49 @@ public class MamlLexer implements FlexLexer {
   private static final int [] ZZ_TRANS = zzUnpacktrans();
 
   private static final String ZZ_TRANS_PACKED_0 =
-    "\1\2\1\3\1\4\1\2\1\3\1\2\1\5\1\6"+
-    "\1\2\1\7\1\10\1\2\1\11\1\12\1\13\2\14"+
-    "\1\15\1\2\1\16\2\14\1\17\1\14\1\20\2\14"+
-    "\1\21\1\14\1\22\1\23\1\2\41\0\1\3\2\0"+
-    "\1\3\35\0\1\4\41\0\2\24\1\25\13\24\1\26"+
-    "\15\24\2\6\1\0\35\6\12\0\1\14\1\0\1\11"+
-    "\1\12\1\0\2\14\3\0\11\14\15\0\1\14\1\27"+
-    "\2\14\1\0\1\14\1\30\3\0\1\14\1\30\7\14"+
-    "\15\0\1\14\1\27\2\12\1\0\1\14\1\30\3\0"+
-    "\1\14\1\30\7\14\15\0\1\14\1\0\2\14\1\0"+
-    "\2\14\3\0\11\14\15\0\1\14\1\0\2\14\1\0"+
-    "\2\14\3\0\1\31\10\14\15\0\1\14\1\0\2\14"+
-    "\1\0\2\14\3\0\10\14\1\32\15\0\1\14\1\0"+
-    "\2\14\1\0\2\14\3\0\5\14\1\33\3\14\7\0"+
-    "\2\24\1\34\13\24\1\26\15\24\6\0\1\35\31\0"+
-    "\2\24\2\0\33\24\15\0\2\36\32\0\1\37\1\0"+
-    "\1\40\1\0\2\41\1\0\2\14\3\0\11\14\15\0"+
-    "\1\14\1\0\2\14\1\0\2\14\3\0\3\14\1\42"+
-    "\5\14\15\0\1\14\1\0\2\14\1\0\2\14\3\0"+
-    "\3\14\1\43\5\14\15\0\1\14\1\0\2\14\1\0"+
-    "\2\14\3\0\10\14\1\44\3\0\6\35\1\45\13\35"+
-    "\1\46\15\35\14\0\2\36\2\0\1\47\4\0\1\47"+
-    "\26\0\2\50\34\0\1\14\1\0\2\41\1\0\2\14"+
-    "\3\0\11\14\15\0\1\14\1\0\2\14\1\0\2\14"+
-    "\3\0\6\14\1\51\2\14\15\0\1\14\1\0\2\14"+
-    "\1\0\2\14\3\0\3\14\1\52\5\14\15\0\1\14"+
-    "\1\0\2\14\1\0\2\14\3\0\1\14\1\53\7\14"+
-    "\3\0\6\35\1\54\37\35\1\55\13\35\1\46\15\35"+
-    "\10\0\1\37\1\0\1\37\1\0\2\50\34\0\1\14"+
-    "\1\0\2\14\1\0\2\14\3\0\1\14\1\56\7\14"+
-    "\3\0\6\35\1\57\37\35\1\60\71\35";
+    "\1\3\1\4\1\5\1\3\1\5\1\4\1\3\1\6"+
+    "\1\7\1\3\1\10\1\11\1\3\1\12\1\13\1\14"+
+    "\2\15\1\16\1\3\1\17\2\15\1\20\1\15\1\21"+
+    "\2\15\1\22\1\15\1\23\1\24\1\3\2\25\1\26"+
+    "\1\25\1\27\2\25\1\30\13\25\1\31\15\25\42\0"+
+    "\1\4\3\0\1\4\35\0\1\5\1\0\1\5\41\0"+
+    "\2\32\1\33\13\32\1\34\15\32\2\7\1\0\1\7"+
+    "\1\0\34\7\13\0\1\15\1\0\1\12\1\13\1\0"+
+    "\2\15\3\0\11\15\16\0\1\15\1\35\2\15\1\0"+
+    "\1\15\1\36\3\0\1\15\1\36\7\15\16\0\1\15"+
+    "\1\35\2\13\1\0\1\15\1\36\3\0\1\15\1\36"+
+    "\7\15\16\0\1\15\1\0\2\15\1\0\2\15\3\0"+
+    "\11\15\16\0\1\15\1\0\2\15\1\0\2\15\3\0"+
+    "\1\37\10\15\16\0\1\15\1\0\2\15\1\0\2\15"+
+    "\3\0\10\15\1\40\16\0\1\15\1\0\2\15\1\0"+
+    "\2\15\3\0\5\15\1\41\3\15\3\0\2\25\1\0"+
+    "\1\25\1\0\2\25\1\42\13\25\1\31\15\25\2\0"+
+    "\1\26\36\0\2\25\1\0\1\25\1\0\2\25\1\43"+
+    "\33\25\1\0\1\25\1\0\2\25\1\44\13\25\1\31"+
+    "\15\25\5\0\2\32\1\45\13\32\1\34\15\32\1\0"+
+    "\2\46\1\0\2\46\1\0\1\47\7\0\1\50\21\0"+
+    "\2\32\3\0\33\32\16\0\2\51\33\0\1\52\1\0"+
+    "\1\53\1\0\2\54\1\0\2\15\3\0\11\15\16\0"+
+    "\1\15\1\0\2\15\1\0\2\15\3\0\3\15\1\55"+
+    "\5\15\16\0\1\15\1\0\2\15\1\0\2\15\3\0"+
+    "\3\15\1\56\5\15\16\0\1\15\1\0\2\15\1\0"+
+    "\2\15\3\0\10\15\1\57\3\0\2\25\1\0\1\25"+
+    "\1\0\2\25\1\60\33\25\1\0\1\25\1\0\2\25"+
+    "\1\61\33\25\1\0\1\25\1\0\2\25\1\62\31\25"+
+    "\1\0\2\46\1\0\2\46\11\0\1\50\36\0\2\51"+
+    "\2\0\1\63\4\0\1\63\27\0\2\64\35\0\1\15"+
+    "\1\0\2\54\1\0\2\15\3\0\11\15\16\0\1\15"+
+    "\1\0\2\15\1\0\2\15\3\0\6\15\1\65\2\15"+
+    "\16\0\1\15\1\0\2\15\1\0\2\15\3\0\3\15"+
+    "\1\66\5\15\16\0\1\15\1\0\2\15\1\0\2\15"+
+    "\3\0\1\15\1\67\7\15\3\0\2\25\1\0\1\25"+
+    "\1\0\2\25\1\0\33\25\1\0\1\25\1\0\34\25"+
+    "\11\0\1\52\1\0\1\52\1\0\2\64\35\0\1\15"+
+    "\1\0\2\15\1\0\2\15\3\0\1\15\1\70\7\15"+
+    "\3\0";
 
   private static int [] zzUnpacktrans() {
-    int [] result = new int[1120];
+    int [] result = new int[1320];
     int offset = 0;
     offset = zzUnpacktrans(ZZ_TRANS_PACKED_0, offset, result);
     return result;
@@ -234,13 +245,13 @@ public class MamlLexer implements FlexLexer {
   private static final int [] ZZ_ATTRIBUTE = zzUnpackAttribute();
 
   private static final String ZZ_ATTRIBUTE_PACKED_0 =
-    "\1\0\1\11\4\1\1\11\3\1\1\11\1\1\2\11"+
-    "\3\1\2\11\2\1\2\0\4\1\1\11\2\1\1\0"+
-    "\5\1\1\0\1\1\1\0\4\1\2\0\1\1\1\11"+
-    "\1\0";
+    "\2\0\1\11\4\1\1\11\3\1\1\11\1\1\2\11"+
+    "\3\1\2\11\1\1\1\11\5\1\2\0\4\1\1\0"+
+    "\1\1\1\0\1\1\1\0\2\11\1\1\1\0\5\1"+
+    "\1\0\1\11\2\0\5\1";
 
   private static int [] zzUnpackAttribute() {
-    int [] result = new int[48];
+    int [] result = new int[56];
     int offset = 0;
     offset = zzUnpackAttribute(ZZ_ATTRIBUTE_PACKED_0, offset, result);
     return result;
@@ -312,6 +323,13 @@ public class MamlLexer implements FlexLexer {
     this((java.io.Reader)null);
   }
 
+  // Number of characters matched after the closing quote of a key string
+  private int keyStringSuffixLength() {
+    int end = yylength() - 1;
+    while (yycharat(end - 1) != '"') end--;
+    return yylength() - end;
+  }
+
 
   /**
    * Creates a new scanner
@@ -558,87 +576,104 @@ public class MamlLexer implements FlexLexer {
             { return BAD_CHARACTER;
             }
           // fall through
-          case 18: break;
+          case 21: break;
           case 2:
             { return WHITE_SPACE;
             }
           // fall through
-          case 19: break;
+          case 22: break;
           case 3:
             { return UNTERMINATED_STRING;
             }
           // fall through
-          case 20: break;
+          case 23: break;
           case 4:
             { return COMMENT;
             }
           // fall through
-          case 21: break;
+          case 24: break;
           case 5:
             { return COMMA;
             }
           // fall through
-          case 22: break;
+          case 25: break;
           case 6:
             { return IDENTIFIER;
             }
           // fall through
-          case 23: break;
+          case 26: break;
           case 7:
             { return NUMBER;
             }
           // fall through
-          case 24: break;
+          case 27: break;
           case 8:
             { return COLON;
             }
           // fall through
-          case 25: break;
+          case 28: break;
           case 9:
             { return LBRACKET;
             }
           // fall through
-          case 26: break;
+          case 29: break;
           case 10:
             { return RBRACKET;
             }
           // fall through
-          case 27: break;
+          case 30: break;
           case 11:
             { return LBRACE;
             }
           // fall through
-          case 28: break;
+          case 31: break;
           case 12:
             { return RBRACE;
             }
           // fall through
-          case 29: break;
+          case 32: break;
           case 13:
-            { return STRING;
+            { return MULTILINE_STRING;
             }
           // fall through
-          case 30: break;
+          case 33: break;
           case 14:
-            { return MULTILINE_STRING;
+            { return STRING;
             }
           // fall through
-          case 31: break;
+          case 34: break;
           case 15:
-            { return NULL;
+            { yybegin(IN_MULTILINE_STRING); return MULTILINE_STRING;
             }
           // fall through
-          case 32: break;
+          case 35: break;
           case 16:
-            { return TRUE;
+            { // Only the string itself is the key, the colon is lexed on its own
+                             yypushback(keyStringSuffixLength());
+                             return KEY_STRING;
             }
           // fall through
-          case 33: break;
+          case 36: break;
           case 17:
+            { yybegin(YYINITIAL); return MULTILINE_STRING;
+            }
+          // fall through
+          case 37: break;
+          case 18:
+            { return NULL;
+            }
+          // fall through
+          case 38: break;
+          case 19:
+            { return TRUE;
+            }
+          // fall through
+          case 39: break;
+          case 20:
             { return FALSE;
             }
           // fall through
-          case 34: break;
+          case 40: break;
           default:
             zzScanError(ZZ_NO_MATCH);
           }
@@ -32,7 +32,17 @@ public class MamlParser implements PsiParser, LightPsiParser {
   }
 
   static boolean parse_root_(IElementType t, PsiBuilder b, int l) {
-    return mamlFile(b, l + 1);
+    boolean r;
+    if (t == ARRAY) {
+      r = array(b, l + 1);
+    }
+    else if (t == OBJECT) {
+      r = object(b, l + 1);
+    }
+    else {
+      r = mamlFile(b, l + 1);
+    }
+    return r;
   }
 
   /* ********************************************************** */
@@ -94,7 +104,7 @@ public class MamlParser implements PsiParser, LightPsiParser {
   // key &(!(COLON))
   public static boolean incomplete_key_value(PsiBuilder b, int l) {
     if (!recursion_guard_(b, l, "incomplete_key_value")) return false;
-    if (!nextTokenIs(b, "<incomplete key value>", IDENTIFIER, STRING)) return false;
+    if (!nextTokenIs(b, "<incomplete key value>", IDENTIFIER, KEY_STRING, STRING)) return false;
     boolean r;
     Marker m = enter_section_(b, l, _NONE_, INCOMPLETE_KEY_VALUE, "<incomplete key value>");
     r = key(b, l + 1);
@@ -186,13 +196,14 @@ public class MamlParser implements PsiParser, LightPsiParser {
   }
 
   /* ********************************************************** */
-  // STRING | IDENTIFIER
+  // KEY_STRING | STRING | IDENTIFIER
   public static boolean key(PsiBuilder b, int l) {
     if (!recursion_guard_(b, l, "key")) return false;
-    if (!nextTokenIs(b, "<key>", IDENTIFIER, STRING)) return false;
+    if (!nextTokenIs(b, "<key>", IDENTIFIER, KEY_STRING, STRING)) return false;
     boolean r;
     Marker m = enter_section_(b, l, _NONE_, KEY, "<key>");
-    r = consumeToken(b, STRING);
+    r = consumeToken(b, KEY_STRING);
+    if (!r) r = consumeToken(b, STRING);
     if (!r) r = consumeToken(b, IDENTIFIER);
     exit_section_(b, l, m, r, false, null);
     return r;
@@ -202,7 +213,7 @@ public class MamlParser implements PsiParser, LightPsiParser {
   // key COLON value
   public static boolean key_value(PsiBuilder b, int l) {
     if (!recursion_guard_(b, l, "key_value")) return false;
-    if (!nextTokenIs(b, "<key value>", IDENTIFIER, STRING)) return false;
+    if (!nextTokenIs(b, "<key value>", IDENTIFIER, KEY_STRING, STRING)) return false;
     boolean r, p;
     Marker m = enter_section_(b, l, _NONE_, KEY_VALUE, "<key value>");
     r = key(b, l + 1);
@@ -214,7 +225,7 @@ public class MamlParser implements PsiParser, LightPsiParser {
   }
 
   /* ********************************************************** */
-  // !(RBRACE | STRING | IDENTIFIER | COMMA | <<eof>>)
+  // !(RBRACE | KEY_STRING | STRING | IDENTIFIER | COMMA | <<eof>>)
   static boolean key_value_recover(PsiBuilder b, int l) {
     if (!recursion_guard_(b, l, "key_value_recover")) return false;
     boolean r;
@@ -224,12 +235,13 @@ public class MamlParser implements PsiParser, LightPsiParser {
     return r;
   }
 
-  // RBRACE | STRING | IDENTIFIER | COMMA | <<eof>>
+  // RBRACE | KEY_STRING | STRING | IDENTIFIER | COMMA | <<eof>>
   private static boolean key_value_recover_0(PsiBuilder b, int l) {
     if (!recursion_guard_(b, l, "key_value_recover_0")) return false;
     boolean r;
     Marker m = enter_section_(b);
     r = consumeToken(b, RBRACE);
+    if (!r) r = consumeToken(b, KEY_STRING);
     if (!r) r = consumeToken(b, STRING);
     if (!r) r = consumeToken(b, IDENTIFIER);
     if (!r) r = consumeToken(b, COMMA);
@@ -262,7 +274,7 @@ public class MamlParser implements PsiParser, LightPsiParser {
   // key_value_recoverable (COMMA? key_value_recoverable)* COMMA?
   public static boolean members(PsiBuilder b, int l) {
     if (!recursion_guard_(b, l, "members")) return false;
-    if (!nextTokenIs(b, "<members>", IDENTIFIER, STRING)) return false;
+    if (!nextTokenIs(b, "<members>", IDENTIFIER, KEY_STRING, STRING)) return false;
     boolean r;
     Marker m = enter_section_(b, l, _NONE_, MEMBERS, "<members>");
     r = key_value_recoverable(b, l + 1);
@@ -4,8 +4,10 @@ package com.davidseptimus.maml.lang.psi;
 import java.util.List;
 import org.jetbrains.annotations.*;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.StubBasedPsiElement;
+import com.davidseptimus.maml.lang.psi.stubs.MamlKeyValueStub;
 
-public interface MamlKeyValue extends PsiElement {
+public interface MamlKeyValue extends StubBasedPsiElement<MamlKeyValueStub> {
 
   @NotNull
   MamlKey getKey();
@@ -8,31 +8,32 @@ import com.davidseptimus.maml.lang.psi.impl.*;
 
 public interface MamlTypes {
 
-  IElementType ARRAY = new MamlElementType("ARRAY");
+  IElementType ARRAY = MamlElementTypeFactory.createElementType("ARRAY");
   IElementType INCOMPLETE_KEY_VALUE = new MamlElementType("INCOMPLETE_KEY_VALUE");
   IElementType INVALID_VALUE = new MamlElementType("INVALID_VALUE");
   IElementType ITEMS = new MamlElementType("ITEMS");
   IElementType KEY = new MamlElementType("KEY");
-  IElementType KEY_VALUE = new MamlElementType("KEY_VALUE");
+  IElementType KEY_VALUE = MamlElementTypeFactory.createElementType("KEY_VALUE");
   IElementType MEMBERS = new MamlElementType("MEMBERS");
-  IElementType OBJECT = new MamlElementType("OBJECT");
+  IElementType OBJECT = MamlElementTypeFactory.createElementType("OBJECT");
   IElementType VALUE = new MamlElementType("VALUE");
 
-  IElementType COLON = new MamlTokenType("COLON");
-  IElementType COMMA = new MamlTokenType("COMMA");
-  IElementType COMMENT = new MamlTokenType("COMMENT");
-  IElementType FALSE = new MamlTokenType("FALSE");
-  IElementType IDENTIFIER = new MamlTokenType("IDENTIFIER");
-  IElementType LBRACE = new MamlTokenType("LBRACE");
-  IElementType LBRACKET = new MamlTokenType("LBRACKET");
-  IElementType MULTILINE_STRING = new MamlTokenType("MULTILINE_STRING");
-  IElementType NULL = new MamlTokenType("NULL");
-  IElementType NUMBER = new MamlTokenType("NUMBER");
-  IElementType RBRACE = new MamlTokenType("RBRACE");
-  IElementType RBRACKET = new MamlTokenType("RBRACKET");
-  IElementType STRING = new MamlTokenType("STRING");
-  IElementType TRUE = new MamlTokenType("TRUE");
-  IElementType UNTERMINATED_STRING = new MamlTokenType("UNTERMINATED_STRING");
+  IElementType COLON = MamlElementTypeFactory.createTokenType("COLON");
+  IElementType COMMA = MamlElementTypeFactory.createTokenType("COMMA");
+  IElementType COMMENT = MamlElementTypeFactory.createTokenType("COMMENT");
+  IElementType FALSE = MamlElementTypeFactory.createTokenType("FALSE");
+  IElementType IDENTIFIER = MamlElementTypeFactory.createTokenType("IDENTIFIER");
+  IElementType KEY_STRING = MamlElementTypeFactory.createTokenType("KEY_STRING");
+  IElementType LBRACE = MamlElementTypeFactory.createTokenType("LBRACE");
+  IElementType LBRACKET = MamlElementTypeFactory.createTokenType("LBRACKET");
+  IElementType MULTILINE_STRING = MamlElementTypeFactory.createTokenType("MULTILINE_STRING");
+  IElementType NULL = MamlElementTypeFactory.createTokenType("NULL");
+  IElementType NUMBER = MamlElementTypeFactory.createTokenType("NUMBER");
+  IElementType RBRACE = MamlElementTypeFactory.createTokenType("RBRACE");
+  IElementType RBRACKET = MamlElementTypeFactory.createTokenType("RBRACKET");
+  IElementType STRING = MamlElementTypeFactory.createTokenType("STRING");
+  IElementType TRUE = MamlElementTypeFactory.createTokenType("TRUE");
+  IElementType UNTERMINATED_STRING = MamlElementTypeFactory.createTokenType("UNTERMINATED_STRING");
 
   class Factory {
     public static PsiElement createElement(ASTNode node) {
@@ -8,15 +8,26 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.util.PsiTreeUtil;
 import static com.davidseptimus.maml.lang.psi.MamlTypes.*;
-import com.intellij.extapi.psi.ASTWrapperPsiElement;
+import com.davidseptimus.maml.lang.psi.MamlKeyValueMixin;
 import com.davidseptimus.maml.lang.psi.*;
+import com.davidseptimus.maml.lang.psi.stubs.MamlKeyValueStub;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.tree.IElementType;
 
-public class MamlKeyValueImpl extends ASTWrapperPsiElement implements MamlKeyValue {
+public class MamlKeyValueImpl extends MamlKeyValueMixin implements MamlKeyValue {
+
+  public MamlKeyValueImpl(@NotNull MamlKeyValueStub stub, @NotNull IStubElementType<?, ?> type) {
+    super(stub, type);
+  }
 
   public MamlKeyValueImpl(@NotNull ASTNode node) {
     super(node);
   }
 
+  public MamlKeyValueImpl(MamlKeyValueStub stub, IElementType type, ASTNode node) {
+    super(stub, type, node);
+  }
+
   public void accept(@NotNull MamlVisitor visitor) {
     visitor.visitKeyValue(this);
   }
@@ -30,13 +41,13 @@ public class MamlKeyValueImpl extends ASTWrapperPsiElement implements MamlKeyVal
   @Override
   @NotNull
   public MamlKey getKey() {
-    return findNotNullChildByClass(MamlKey.class);
+    return notNullChild(PsiTreeUtil.getChildOfType(this, MamlKey.class));
   }
 
   @Override
   @Nullable
   public MamlValue getValue() {
-    return findChildByClass(MamlValue.class);
+    return PsiTreeUtil.getChildOfType(this, MamlValue.class);
   }
 
 }
@@ -0,0 +1,45 @@
+package com.davidseptimus.maml.annotators
+
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.davidseptimus.maml.lang.psi.MamlValueElement
+import com.intellij.lang.annotation.AnnotationHolder
+import com.intellij.lang.annotation.Annotator
+import com.intellij.psi.PsiElement
+import com.intellij.psi.TokenType
+
+/**
+ * The single annotator registered for MAML.
+ *
+ * Classifies each element once by its element type and routes it to the checks that apply to it,
+ * instead of letting every check inspect every element. String values are read once and shared
+ * between the color and reference checks. Keys and escape sequences are colored by the highlighting lexer.
+ */
+class MamlAnnotator : Annotator {
+
+    private val syntaxErrorAnnotator = MamlSyntaxErrorAnnotator()
+    private val referenceAnnotator = MamlReferenceAnnotator()
+    private val colorAnnotator = MamlColorAnnotator()
+    private val invalidValueAnnotator = MamlInvalidValueAnnotator()
+    private val incompleteKeyValueAnnotator = MamlIncompleteKeyValueAnnotator()
+    private val missingCommaAnnotator = MamlMissingCommaAnnotator()
+
+    override fun annotate(element: PsiElement, holder: AnnotationHolder) {
+        when (element.node.elementType) {
+            TokenType.ERROR_ELEMENT -> syntaxErrorAnnotator.annotate(element, holder)
+            MamlTypes.VALUE -> annotateValue(element, holder)
+            MamlTypes.COMMENT -> referenceAnnotator.annotate(element, holder)
+            MamlTypes.INVALID_VALUE -> invalidValueAnnotator.annotate(element, holder)
+            MamlTypes.INCOMPLETE_KEY_VALUE -> incompleteKeyValueAnnotator.annotate(element, holder)
+            MamlTypes.OBJECT, MamlTypes.ARRAY -> missingCommaAnnotator.annotate(element, holder)
+        }
+    }
+
+    private fun annotateValue(value: PsiElement, holder: AnnotationHolder) {
+        if (value !is MamlValueElement) return
+        // Objects, arrays and other scalars are handled when their own element is visited
+        val literal = MamlStringLiteral.of(value.firstChild) ?: return
+
+        colorAnnotator.annotateColor(value, literal, holder)
+        referenceAnnotator.annotateValue(value, literal, holder)
+    }
+}
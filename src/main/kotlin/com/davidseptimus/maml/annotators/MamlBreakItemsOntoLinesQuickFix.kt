@@ -26,34 +26,18 @@ class MamlBreakItemsOntoLinesQuickFix(private val container: PsiElement) : Inten
     override fun isAvailable(project: Project, editor: Editor?, file: PsiFile?): Boolean = true
 
     override fun invoke(project: Project, editor: Editor?, file: PsiFile?) {
-        when (container) {
-            is MamlArray -> breakArrayItems(container)
-            is MamlObject -> breakObjectItems(container)
-        }
-    }
-
-    private fun breakArrayItems(array: MamlArray) {
-        val items = array.items ?: return
-        val pairs = MamlSpacingUtil.getArrayValuePairs(array)
-
-        // Process from end to beginning to avoid index issues
-        for ((currentValue, nextValue) in pairs.reversed()) {
-            if (MamlSpacingUtil.areSameLine(currentValue, nextValue)) {
-                val newline = MamlElementFactory.createNewline(array.project)
-                items.addAfter(newline, currentValue)
-            }
-        }
-    }
-
-    private fun breakObjectItems(obj: MamlObject) {
-        val members = obj.members ?: return
-        val pairs = MamlSpacingUtil.getObjectKeyValuePairs(obj)
+        val parent = when (container) {
+            is MamlArray -> container.items
+            is MamlObject -> container.members
+            else -> null
+        } ?: return
+        val layout = MamlSpacingUtil.itemLayout(container)
 
         // Process from end to beginning to avoid index issues
-        for ((currentKv, nextKv) in pairs.reversed()) {
-            if (MamlSpacingUtil.areSameLine(currentKv, nextKv)) {
-                val newline = MamlElementFactory.createNewline(obj.project)
-                members.addAfter(newline, currentKv)
+        for (pair in layout.pairCount - 1 downTo 0) {
+            if (layout.isSameLine(pair)) {
+                val newline = MamlElementFactory.createNewline(container.project)
+                parent.addAfter(newline, layout.items[pair])
             }
         }
     }
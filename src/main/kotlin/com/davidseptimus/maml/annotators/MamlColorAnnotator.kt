@@ -1,6 +1,7 @@
 package com.davidseptimus.maml.annotators
 
 import com.davidseptimus.maml.MamlBundle
+import com.davidseptimus.maml.annotators.MamlColorParser.ColorFormat
 import com.davidseptimus.maml.lang.psi.MamlTypes
 import com.davidseptimus.maml.lang.psi.MamlValueElement
 import com.intellij.lang.annotation.AnnotationHolder
@@ -11,6 +12,7 @@ import com.intellij.openapi.actionSystem.AnActionEvent
 import com.intellij.openapi.actionSystem.CommonDataKeys
 import com.intellij.openapi.command.WriteCommandAction
 import com.intellij.openapi.editor.markup.GutterIconRenderer
+import com.intellij.openapi.util.Key
 import com.intellij.psi.PsiElement
 import com.intellij.psi.impl.source.tree.LeafPsiElement
 import com.intellij.ui.ColorChooserService
@@ -21,113 +23,53 @@ import java.awt.Color
 import javax.swing.Icon
 
 /**
- * Annotator that adds gutter icons for hex color values with a color picker.
+ * Annotator that adds gutter icons for hex, rgb and rgba color values with a color picker.
  */
 class MamlColorAnnotator : Annotator {
 
-    private val hexColorPattern = Regex("^#([0-9A-Fa-f]{3}|[0-9A-Fa-f]{6}|[0-9A-Fa-f]{8})$")
-    private val rgbPattern =
-        Regex("^rgb\\s*\\(\\s*(\\d{1,3})\\s*,\\s*(\\d{1,3})\\s*,\\s*(\\d{1,3})\\s*\\)$", RegexOption.IGNORE_CASE)
-    private val rgbaPattern = Regex(
-        "^rgba\\s*\\(\\s*(\\d{1,3})\\s*,\\s*(\\d{1,3})\\s*,\\s*(\\d{1,3})\\s*,\\s*(0|1|0?\\.\\d+|1\\.0+)\\s*\\)$",
-        RegexOption.IGNORE_CASE
-    )
-
-    private enum class ColorFormat {
-        HEX_RGB,      // #RGB
-        HEX_RRGGBB,   // #RRGGBB
-        HEX_RGBA,     // #RRGGBBAA
-        RGB,          // rgb(r, g, b)
-        RGBA          // rgba(r, g, b, a)
+    companion object {
+        private val PARSED_COLOR = Key.create<CachedColor>("maml.parsed.color")
     }
 
+    /**
+     * Color parsed from [leaf], reused until the string token is replaced by an edit.
+     */
+    private class CachedColor(val leaf: LeafPsiElement, val color: MamlColorParser.ParsedColor?)
+
     override fun annotate(element: PsiElement, holder: AnnotationHolder) {
         if (element !is MamlValueElement) return
 
         // Check if this is a string value
-        val child = element.firstChild
-        if (child !is LeafPsiElement) return
-        if (child.elementType != MamlTypes.STRING) return
-
-        val text = element.text.trim().removeSurrounding("\"")
-        val color = parseColor(text) ?: return
-
-        holder.newSilentAnnotation(HighlightSeverity.INFORMATION)
-            .gutterIconRenderer(ColorIconRenderer(element, color, hexColorPattern, rgbPattern, rgbaPattern))
-            .create()
-    }
-
-    private fun parseColor(colorText: String): Color? {
-        // Try hex color
-        if (hexColorPattern.matches(colorText)) {
-            return parseHexColor(colorText)
-        }
-
-        // Try rgb() or rgba()
-        rgbPattern.matchEntire(colorText)?.let { match ->
-            return parseRgbColor(match)
-        }
-
-        rgbaPattern.matchEntire(colorText)?.let { match ->
-            return parseRgbaColor(match)
-        }
-
-        return null
+        val literal = MamlStringLiteral.of(element.firstChild) ?: return
+        annotateColor(element, literal, holder)
     }
 
-    private fun parseHexColor(colorText: String): Color? {
-        return try {
-            val hex = colorText.substring(1)
-            when (hex.length) {
-                3 -> ColorUtil.fromHex(hex) // #RGB
-                6 -> ColorUtil.fromHex(hex) // #RRGGBB
-                8 -> ColorUtil.fromHex(hex) // #RRGGBBAA
-                else -> null
-            }
-        } catch (_: Exception) {
-            null
-        }
-    }
+    fun annotateColor(element: MamlValueElement, literal: MamlStringLiteral, holder: AnnotationHolder) {
+        if (literal.isMultiline) return
+        // Almost all strings are rejected here, before any parsing or allocation
+        if (!MamlColorParser.mayBeColor(literal.content)) return
 
-    private fun parseRgbColor(match: MatchResult): Color? {
-        return try {
-            val r = match.groupValues[1].toInt()
-            val g = match.groupValues[2].toInt()
-            val b = match.groupValues[3].toInt()
+        val color = parseColor(element, literal) ?: return
 
-            if (r in 0..255 && g in 0..255 && b in 0..255) {
-                Color(r, g, b)
-            } else {
-                null
-            }
-        } catch (_: Exception) {
-            null
-        }
+        holder.newSilentAnnotation(HighlightSeverity.INFORMATION)
+            .gutterIconRenderer(ColorIconRenderer(element, color.color))
+            .create()
     }
 
-    private fun parseRgbaColor(match: MatchResult): Color? {
-        return try {
-            val r = match.groupValues[1].toInt()
-            val g = match.groupValues[2].toInt()
-            val b = match.groupValues[3].toInt()
-            val a = (match.groupValues[4].toFloat() * 255).toInt()
-
-            if (r in 0..255 && g in 0..255 && b in 0..255 && a in 0..255) {
-                Color(r, g, b, a)
-            } else {
-                null
-            }
-        } catch (_: Exception) {
-            null
+    private fun parseColor(element: MamlValueElement, literal: MamlStringLiteral): MamlColorParser.ParsedColor? {
+        // String tokens are immutable, an edit replaces the token and so invalidates the cached color
+        val cached = element.getUserData(PARSED_COLOR)
+        if (cached != null && cached.leaf === literal.leaf) {
+            return cached.color
         }
+        val color = MamlColorParser.parse(literal.content)
+        element.putUserData(PARSED_COLOR, CachedColor(literal.leaf, color))
+        return color
     }
 
     private class ColorIconRenderer(
         private val element: PsiElement,
-        private val color: Color,
-        private val hexColorPattern: Regex,
-        private val rgbPattern: Regex,
-        private val rgbaPattern: Regex
+        private val color: Color
     ) : GutterIconRenderer() {
 
         override fun getIcon(): Icon {
@@ -176,23 +118,8 @@ class MamlColorAnnotator : Annotator {
             }
         }
 
-        private fun detectColorFormat(colorText: String): ColorFormat {
-            return when {
-                rgbaPattern.matches(colorText) -> ColorFormat.RGBA
-                rgbPattern.matches(colorText) -> ColorFormat.RGB
-                hexColorPattern.matches(colorText) -> {
-                    val hex = colorText.substring(1)
-                    when (hex.length) {
-                        3 -> ColorFormat.HEX_RGB
-                        6 -> ColorFormat.HEX_RRGGBB
-                        8 -> ColorFormat.HEX_RGBA
-                        else -> ColorFormat.HEX_RRGGBB
-                    }
-                }
-
-                else -> ColorFormat.HEX_RRGGBB
-            }
-        }
+        private fun detectColorFormat(colorText: String): ColorFormat =
+            MamlColorParser.parse(colorText)?.format ?: ColorFormat.HEX_RRGGBB
 
         private fun formatColor(color: Color, format: ColorFormat): String {
             return when (format) {
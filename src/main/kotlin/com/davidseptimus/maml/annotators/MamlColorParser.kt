@@ -0,0 +1,180 @@
+package com.davidseptimus.maml.annotators
+
+import java.awt.Color
+
+/**
+ * Parses the color values shown with a gutter icon: `#RGB`, `#RRGGBB`, `#RRGGBBAA`, `rgb(r, g, b)`
+ * and `rgba(r, g, b, a)`.
+ *
+ * Reads the text in place without regular expressions. Text that cannot be a color is rejected by
+ * its length and first character before anything else is looked at, which is the common case for
+ * string values.
+ */
+internal object MamlColorParser {
+
+    enum class ColorFormat {
+        HEX_RGB,      // #RGB
+        HEX_RRGGBB,   // #RRGGBB
+        HEX_RGBA,     // #RRGGBBAA
+        RGB,          // rgb(r, g, b)
+        RGBA          // rgba(r, g, b, a)
+    }
+
+    class ParsedColor(val color: Color, val format: ColorFormat)
+
+    // Shortest is "#RGB", anything much longer than "rgba(255, 255, 255, 0.5)" is not a color
+    private const val MIN_LENGTH = 4
+    private const val MAX_LENGTH = 64
+
+    /**
+     * Returns false for text that is certainly not a color, without allocating.
+     */
+    fun mayBeColor(text: CharSequence): Boolean {
+        if (text.length < MIN_LENGTH || text.length > MAX_LENGTH) return false
+        val first = text[0]
+        return first == '#' || first == 'r' || first == 'R'
+    }
+
+    fun parse(text: CharSequence): ParsedColor? {
+        if (!mayBeColor(text)) return null
+        return if (text[0] == '#') parseHex(text) else parseFunction(text)
+    }
+
+    private fun parseHex(text: CharSequence): ParsedColor? {
+        val digits = text.length - 1
+        val format = when (digits) {
+            3 -> ColorFormat.HEX_RGB
+            6 -> ColorFormat.HEX_RRGGBB
+            8 -> ColorFormat.HEX_RGBA
+            else -> return null
+        }
+        for (i in 1 until text.length) {
+            if (hexDigit(text, i) < 0) return null
+        }
+
+        val color = if (digits == 3) {
+            Color(hexDigit(text, 1) * 17, hexDigit(text, 2) * 17, hexDigit(text, 3) * 17)
+        } else {
+            val alpha = if (digits == 8) hexByte(text, 7) else 255
+            Color(hexByte(text, 1), hexByte(text, 3), hexByte(text, 5), alpha)
+        }
+        return ParsedColor(color, format)
+    }
+
+    private fun hexDigit(text: CharSequence, index: Int): Int = when (val char = text[index]) {
+        in '0'..'9' -> char - '0'
+        in 'a'..'f' -> char - 'a' + 10
+        in 'A'..'F' -> char - 'A' + 10
+        else -> -1
+    }
+
+    private fun hexByte(text: CharSequence, index: Int): Int = hexDigit(text, index) * 16 + hexDigit(text, index + 1)
+
+    /**
+     * Parses `rgb(r, g, b)` and `rgba(r, g, b, a)`, case-insensitively, with optional whitespace
+     * around the parentheses and commas.
+     */
+    private fun parseFunction(text: CharSequence): ParsedColor? {
+        val cursor = Cursor(text)
+        if (!cursor.skipIgnoreCase("rgb")) return null
+        val hasAlpha = cursor.skipIgnoreCase("a")
+
+        cursor.skipWhitespace()
+        if (!cursor.skip('(')) return null
+        val red = cursor.component() ?: return null
+        if (!cursor.skip(',')) return null
+        val green = cursor.component() ?: return null
+        if (!cursor.skip(',')) return null
+        val blue = cursor.component() ?: return null
+
+        var alpha = 255
+        if (hasAlpha) {
+            if (!cursor.skip(',')) return null
+            cursor.skipWhitespace()
+            alpha = cursor.alpha() ?: return null
+            cursor.skipWhitespace()
+        }
+        if (!cursor.skip(')') || !cursor.atEnd) return null
+
+        return if (hasAlpha) {
+            ParsedColor(Color(red, green, blue, alpha), ColorFormat.RGBA)
+        } else {
+            ParsedColor(Color(red, green, blue), ColorFormat.RGB)
+        }
+    }
+
+    private class Cursor(private val text: CharSequence) {
+        private var index = 0
+
+        val atEnd: Boolean get() = index == text.length
+
+        fun skip(char: Char): Boolean {
+            if (index < text.length && text[index] == char) {
+                index++
+                return true
+            }
+            return false
+        }
+
+        fun skipIgnoreCase(prefix: String): Boolean {
+            if (index + prefix.length > text.length) return false
+            for (i in prefix.indices) {
+                if (text[index + i].lowercaseChar() != prefix[i]) return false
+            }
+            index += prefix.length
+            return true
+        }
+
+        fun skipWhitespace() {
+            while (index < text.length && text[index].isWhitespace()) index++
+        }
+
+        /**
+         * A color component of 1 to 3 digits in 0..255, with the whitespace around it.
+         */
+        fun component(): Int? {
+            skipWhitespace()
+            val start = index
+            var value = 0
+            while (index < text.length && index - start < 4 && text[index] in '0'..'9') {
+                value = value * 10 + (text[index] - '0')
+                index++
+            }
+            val length = index - start
+            skipWhitespace()
+            return if (length in 1..3 && value <= 255) value else null
+        }
+
+        /**
+         * An opacity of `0`, `1`, `.5`, `0.5` or `1.0`, scaled to 0..255.
+         */
+        fun alpha(): Int? {
+            val start = index
+            while (index < text.length && text[index] in '0'..'9') index++
+            val integerDigits = index - start
+            val fractionDigits = if (skip('.')) {
+                val fractionStart = index
+                while (index < text.length && text[index] in '0'..'9') index++
+                index - fractionStart
+            } else {
+                -1
+            }
+
+            val integer = if (integerDigits == 1) text[start] else null
+            val valid = when {
+                // 0 or 1
+                fractionDigits < 0 -> integer == '0' || integer == '1'
+                fractionDigits == 0 -> false
+                // .5 or 0.5
+                integerDigits == 0 || integer == '0' -> true
+                // 1.0, 1.00, ...
+                integer == '1' -> (start + 2 until index).all { text[it] == '0' }
+                else -> false
+            }
+            if (!valid) return null
+
+            val alpha = (text.subSequence(start, index).toString().toFloat() * 255).toInt()
+            return alpha.takeIf { it in 0..255 }
+        }
+    }
+}
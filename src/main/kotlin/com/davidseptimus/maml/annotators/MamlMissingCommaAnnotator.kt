@@ -19,57 +19,27 @@ import com.intellij.psi.PsiElement
 class MamlMissingCommaAnnotator : Annotator {
 
     override fun annotate(element: PsiElement, holder: AnnotationHolder) {
-        when (element) {
-            is MamlArray -> checkArray(element, holder)
-            is MamlObject -> checkObject(element, holder)
+        if (element !is MamlArray && element !is MamlObject) {
+            return
         }
-    }
-
-    private fun checkArray(array: MamlArray, holder: AnnotationHolder) {
-        val pairs = MamlSpacingUtil.getArrayValuePairs(array)
-
-        for ((currentValue, nextValue) in pairs) {
-            if (MamlSpacingUtil.areSameLine(currentValue, nextValue) &&
-                !MamlSpacingUtil.hasCommaBetween(currentValue, nextValue)
-            ) {
-
-                // Create error annotation on the gap between the two values
-                val start = currentValue.textRange.endOffset
-                val end = nextValue.textRange.startOffset
-
-                holder.newAnnotation(
-                    HighlightSeverity.ERROR,
-                    MamlBundle.message("annotator.missing.comma")
-                )
-                    .range(TextRange(start, end))
-                    .newFix(MamlInsertMissingCommaQuickFix(currentValue)).registerFix()
-                    .newFix(MamlBreakItemsOntoLinesQuickFix(array)).registerFix()
-                    .create()
-            }
-        }
-    }
-
-    private fun checkObject(obj: MamlObject, holder: AnnotationHolder) {
-        val pairs = MamlSpacingUtil.getObjectKeyValuePairs(obj)
-
-        for ((currentKv, nextKv) in pairs) {
-            if (MamlSpacingUtil.areSameLine(currentKv, nextKv) &&
-                !MamlSpacingUtil.hasCommaBetween(currentKv, nextKv)
-            ) {
-
-                // Create error annotation on the gap between the two key-values
-                val start = currentKv.textRange.endOffset
-                val end = nextKv.textRange.startOffset
 
-                holder.newAnnotation(
-                    HighlightSeverity.ERROR,
-                    MamlBundle.message("annotator.missing.comma")
-                )
-                    .range(TextRange(start, end))
-                    .newFix(MamlInsertMissingCommaQuickFix(currentKv)).registerFix()
-                    .newFix(MamlBreakItemsOntoLinesQuickFix(obj)).registerFix()
-                    .create()
+        val layout = MamlSpacingUtil.itemLayout(element)
+        for (pair in 0 until layout.pairCount) {
+            if (!layout.isMissingComma(pair)) {
+                continue
             }
+            val current = layout.items[pair]
+            val next = layout.items[pair + 1]
+
+            // Create error annotation on the gap between the two items
+            holder.newAnnotation(
+                HighlightSeverity.ERROR,
+                MamlBundle.message("annotator.missing.comma")
+            )
+                .range(TextRange(current.textRange.endOffset, next.textRange.startOffset))
+                .newFix(MamlInsertMissingCommaQuickFix(current)).registerFix()
+                .newFix(MamlBreakItemsOntoLinesQuickFix(element)).registerFix()
+                .create()
         }
     }
-}
\ No newline at end of file
+}
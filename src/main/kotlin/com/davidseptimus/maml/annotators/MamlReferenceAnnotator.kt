@@ -19,30 +19,29 @@ class MamlReferenceAnnotator : Annotator {
 
     override fun annotate(element: PsiElement, holder: AnnotationHolder) {
         when {
-            element is MamlValueElement -> annotateValue(element, holder)
+            element is MamlValueElement -> {
+                // Check if this is a string value
+                val literal = MamlStringLiteral.of(element.firstChild) ?: return
+                annotateValue(element, literal, holder)
+            }
             element is LeafPsiElement && element.elementType == MamlTypes.COMMENT -> annotateComment(element, holder)
         }
     }
 
-    private fun annotateValue(element: MamlValueElement, holder: AnnotationHolder) {
-        // Check if this is a string value
-        val child = element.firstChild
-        if (child !is LeafPsiElement) return
-        if (child.elementType != MamlTypes.STRING && child.elementType != MamlTypes.MULTILINE_STRING) return
-
-        val text = element.text.trim().removeSurrounding("\"").removeSurrounding("\"\"\"")
+    fun annotateValue(element: MamlValueElement, literal: MamlStringLiteral, holder: AnnotationHolder) {
+        val text = literal.content
         if (text.isEmpty()) return
 
         // Check if it's a URL
         if (text.startsWith("http://") || text.startsWith("https://") || text.startsWith("file://")) {
-            highlightAsUrl(element, holder, getStringContentRange(element))
+            highlightAsUrl(element, holder, literal.contentRange)
             return
         }
 
         // Check if the reference resolves to a file
         val reference = element.reference
         if (reference != null && reference.resolve() != null) {
-            highlightAsFilePath(element, holder, getStringContentRange(element))
+            highlightAsFilePath(element, holder, literal.contentRange)
         }
     }
 
@@ -72,17 +71,4 @@ class MamlReferenceAnnotator : Annotator {
             .textAttributes(MamlTokenAttributes.FILE_PATH)
             .create()
     }
-
-    private fun getStringContentRange(element: PsiElement): TextRange {
-        val text = element.text
-        // For regular strings, skip the opening quote
-        if (text.startsWith("\"") && !text.startsWith("\"\"\"")) {
-            return TextRange.create(element.textRange.startOffset + 1, element.textRange.endOffset - 1)
-        }
-        // For multiline strings, skip the triple quotes
-        if (text.startsWith("\"\"\"")) {
-            return TextRange.create(element.textRange.startOffset + 3, element.textRange.endOffset - 3)
-        }
-        return element.textRange
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package com.davidseptimus.maml.annotators
+
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.openapi.util.TextRange
+import com.intellij.psi.PsiElement
+import com.intellij.psi.impl.source.tree.LeafPsiElement
+import com.intellij.psi.tree.TokenSet
+import com.intellij.util.text.CharSequenceSubSequence
+
+/**
+ * A string, key string or multiline string token whose content is shared between the checks of [MamlAnnotator],
+ * so the token text is read once and the content is only copied when a check needs a [String].
+ */
+class MamlStringLiteral private constructor(val leaf: LeafPsiElement) {
+
+    val isMultiline: Boolean = leaf.elementType == MamlTypes.MULTILINE_STRING
+
+    /**
+     * Token text including the quotes.
+     */
+    val chars: CharSequence = leaf.chars
+
+    private val contentStart: Int = minOf(if (isMultiline) 3 else 1, chars.length)
+
+    private val contentEnd: Int = when {
+        isMultiline && chars.length >= 6 && chars.endsWith("\"\"\"") -> chars.length - 3
+        !isMultiline && chars.length >= 2 && chars.endsWith("\"") -> chars.length - 1
+        else -> chars.length
+    }
+
+    /**
+     * Content between the quotes, without copying the token text.
+     */
+    val content: CharSequence = CharSequenceSubSequence(chars, contentStart, contentEnd)
+
+    /**
+     * Content between the quotes as a [String], created at most once.
+     */
+    val contentText: String by lazy(LazyThreadSafetyMode.NONE) { content.toString() }
+
+    /**
+     * Absolute offset of the first content character in the file.
+     */
+    val contentStartOffset: Int
+        get() = leaf.textRange.startOffset + contentStart
+
+    val contentRange: TextRange
+        get() = TextRange.from(contentStartOffset, contentEnd - contentStart)
+
+    companion object {
+        private val STRING_TOKENS = TokenSet.create(MamlTypes.STRING, MamlTypes.KEY_STRING, MamlTypes.MULTILINE_STRING)
+
+        fun of(element: PsiElement?): MamlStringLiteral? {
+            if (element !is LeafPsiElement) return null
+            if (element.elementType !in STRING_TOKENS) return null
+            return MamlStringLiteral(element)
+        }
+    }
+}
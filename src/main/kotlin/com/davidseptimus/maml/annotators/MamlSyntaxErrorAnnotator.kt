@@ -13,6 +13,10 @@ import com.intellij.psi.PsiErrorElement
  */
 class MamlSyntaxErrorAnnotator : Annotator {
 
+    companion object {
+        private val TOKEN_PATTERN = Regex("'([^']+)'")
+    }
+
     override fun annotate(element: PsiElement, holder: AnnotationHolder) {
         if (element !is PsiErrorElement) return
 
@@ -71,7 +75,7 @@ class MamlSyntaxErrorAnnotator : Annotator {
 
     private fun extractToken(errorDescription: String): String {
         // Try to extract the token from error message
-        val match = Regex("'([^']+)'").find(errorDescription)
+        val match = TOKEN_PATTERN.find(errorDescription)
         return match?.groupValues?.get(1) ?: "unknown"
     }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.davidseptimus.maml.batch
+
+import com.davidseptimus.maml.inspections.MamlJsonSchemaComplianceInspection
+import com.davidseptimus.maml.lang.MamlLanguage
+import com.intellij.codeInspection.ProblemDescriptor
+import com.intellij.codeInspection.ProblemDescriptorUtil
+import com.intellij.codeInspection.ex.InspectionEngine
+import com.intellij.codeInspection.ex.LocalInspectionToolWrapper
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.application.WriteAction
+import com.intellij.openapi.progress.EmptyProgressIndicator
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.text.StringUtil
+import com.intellij.openapi.vfs.VfsUtil
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiFileFactory
+import com.intellij.psi.PsiManager
+import com.intellij.psi.codeStyle.CodeStyleManager
+import com.intellij.util.PairProcessor
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Formats and validates MAML files outside the editor, several files at a time.
+ *
+ * Each file is handled by one worker in a read action: formatting runs the regular formatter
+ * (including the pre-format steps) on a non-physical copy of the file, and validation runs
+ * [MamlJsonSchemaComplianceInspection] in batch mode on the file itself. Work is handed to the
+ * workers through a bounded queue, so at most a few files per worker are waiting at any time;
+ * when the queue is full, the submitting thread processes the file itself.
+ *
+ * Formatted text is only written back if [Options.write] is set, after all files are processed.
+ */
+class MamlBatchProcessor(private val project: Project, private val options: Options) {
+
+    class Options(
+        val format: Boolean = true,
+        val validate: Boolean = true,
+        val write: Boolean = false,
+        val threads: Int = Runtime.getRuntime().availableProcessors()
+    )
+
+    companion object {
+        // Files waiting per worker, enough to keep workers busy without holding every file in memory
+        private const val QUEUED_FILES_PER_THREAD = 4
+    }
+
+    private val schemaInspection = LocalInspectionToolWrapper(MamlJsonSchemaComplianceInspection())
+    private val schemaSeverity = schemaInspection.defaultLevel.severity.name
+
+    fun process(files: List<VirtualFile>): MamlBatchReport {
+        val start = System.nanoTime()
+        val threads = options.threads.coerceAtLeast(1)
+        val executor = ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            ArrayBlockingQueue(threads * QUEUED_FILES_PER_THREAD),
+            ThreadPoolExecutor.CallerRunsPolicy()
+        )
+        val results = try {
+            val futures: List<Future<MamlBatchReport.FileResult>> = files.map { file ->
+                executor.submit<MamlBatchReport.FileResult> { processFile(file) }
+            }
+            futures.map { it.get() }
+        } finally {
+            executor.shutdown()
+        }
+
+        if (options.write) {
+            write(files, results)
+        }
+        return MamlBatchReport(results, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+    }
+
+    private fun processFile(file: VirtualFile): MamlBatchReport.FileResult = try {
+        ReadAction.compute<MamlBatchReport.FileResult, Throwable> {
+            val psiFile = PsiManager.getInstance(project).findFile(file)
+                ?: return@compute MamlBatchReport.FileResult(file.path, null, emptyList(), "Cannot read file")
+            val text = psiFile.text
+            val formatted = if (options.format) format(file.name, text) else null
+            val problems = if (options.validate) validate(psiFile) else emptyList()
+            MamlBatchReport.FileResult(file.path, formatted?.takeIf { it != text }, problems)
+        }
+    } catch (e: ProcessCanceledException) {
+        throw e
+    } catch (e: Exception) {
+        MamlBatchReport.FileResult(file.path, null, emptyList(), e.message ?: e.javaClass.name)
+    }
+
+    /**
+     * Reformats a copy of the file without an event system, so no document or PSI events are
+     * involved and files can be formatted concurrently.
+     */
+    private fun format(name: String, text: String): String {
+        val copy = PsiFileFactory.getInstance(project).createFileFromText(name, MamlLanguage, text, false, false)
+        CodeStyleManager.getInstance(project).reformat(copy)
+        return copy.text
+    }
+
+    private fun validate(file: PsiFile): List<MamlBatchReport.Problem> {
+        val descriptors = InspectionEngine.inspectEx(
+            listOf(schemaInspection),
+            file,
+            file.textRange,
+            file.textRange,
+            false,
+            false,
+            true,
+            EmptyProgressIndicator(),
+            PairProcessor { _, _ -> true }
+        )
+        val text = file.viewProvider.contents
+        return descriptors.values.flatten()
+            .mapNotNull { problemOf(it, text) }
+            .sortedWith(compareBy({ it.line }, { it.column }))
+    }
+
+    private fun problemOf(descriptor: ProblemDescriptor, text: CharSequence): MamlBatchReport.Problem? {
+        val element = descriptor.psiElement ?: return null
+        val offset = element.textRange.startOffset + (descriptor.textRangeInElement?.startOffset ?: 0)
+        val position = StringUtil.offsetToLineColumn(text, offset)
+        return MamlBatchReport.Problem(
+            line = position.line + 1,
+            column = position.column + 1,
+            severity = schemaSeverity,
+            message = ProblemDescriptorUtil.renderDescriptionMessage(descriptor, element)
+        )
+    }
+
+    private fun write(files: List<VirtualFile>, results: List<MamlBatchReport.FileResult>) {
+        val changed = files.zip(results).filter { (_, result) -> result.changed }
+        if (changed.isEmpty()) return
+        WriteAction.runAndWait<Throwable> {
+            for ((file, result) in changed) {
+                VfsUtil.saveText(file, result.formattedText!!)
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.davidseptimus.maml.batch
+
+import com.intellij.openapi.util.text.StringUtil
+
+/**
+ * Result of running [MamlBatchProcessor] over a set of files.
+ */
+class MamlBatchReport(
+    val files: List<FileResult>,
+    val elapsedMillis: Long
+) {
+
+    /**
+     * Result for a single file. [formattedText] is the reformatted content if formatting changed
+     * it, [error] is set if the file could not be processed.
+     */
+    class FileResult(
+        val path: String,
+        val formattedText: String?,
+        val problems: List<Problem>,
+        val error: String? = null
+    ) {
+        val changed: Boolean get() = formattedText != null
+    }
+
+    /**
+     * A schema problem, with a 1-based line and column.
+     */
+    class Problem(val line: Int, val column: Int, val severity: String, val message: String)
+
+    val changedCount: Int get() = files.count { it.changed }
+
+    val problemCount: Int get() = files.sumOf { it.problems.size }
+
+    val errorCount: Int get() = files.count { it.error != null }
+
+    /**
+     * Renders the report as JSON, with files in the order they were given.
+     */
+    fun toJson(): String = buildString {
+        append("{\n  \"files\": [")
+        files.forEachIndexed { index, file ->
+            if (index > 0) append(',')
+            append("\n    {\"path\": ").append(quote(file.path))
+            append(", \"changed\": ").append(file.changed)
+            file.error?.let { append(", \"error\": ").append(quote(it)) }
+            append(", \"problems\": [")
+            file.problems.forEachIndexed { problemIndex, problem ->
+                if (problemIndex > 0) append(", ")
+                append("{\"line\": ").append(problem.line)
+                append(", \"column\": ").append(problem.column)
+                append(", \"severity\": ").append(quote(problem.severity))
+                append(", \"message\": ").append(quote(problem.message))
+                append('}')
+            }
+            append("]}")
+        }
+        if (files.isNotEmpty()) append("\n  ")
+        append("],\n  \"summary\": {")
+        append("\"files\": ").append(files.size)
+        append(", \"changed\": ").append(changedCount)
+        append(", \"problems\": ").append(problemCount)
+        append(", \"errors\": ").append(errorCount)
+        append(", \"elapsedMillis\": ").append(elapsedMillis)
+        append("}\n}\n")
+    }
+
+    private fun quote(text: String): String = "\"" + StringUtil.escapeStringCharacters(text) + "\""
+}
@@ -0,0 +1,125 @@
+package com.davidseptimus.maml.batch
+
+import com.davidseptimus.maml.lang.MamlFileType
+import com.intellij.ide.impl.OpenProjectTask
+import com.intellij.openapi.application.ApplicationStarter
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.project.ProjectManager
+import com.intellij.openapi.project.ex.ProjectManagerEx
+import com.intellij.openapi.vfs.LocalFileSystem
+import com.intellij.openapi.vfs.VfsUtilCore
+import com.intellij.openapi.vfs.VirtualFile
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.system.exitProcess
+
+/**
+ * Command-line entry point that formats and validates MAML files without opening the IDE, e.g.
+ * from a pre-commit hook:
+ *
+ * ```
+ * idea maml-batch [--check] [--no-format] [--no-validate] [--threads N] [--project DIR] [--report FILE] PATH...
+ * ```
+ *
+ * Directories are searched for `.maml` files. Files are reformatted in place unless `--check` is
+ * given, in which case files that would change are only reported. Schemas are resolved in the
+ * project at `--project` if given, otherwise in the default project. The JSON report is written to
+ * `--report` or standard output.
+ *
+ * Exits with 0 if all files are formatted and valid, 1 if any file needs formatting (with
+ * `--check`), has schema problems or could not be processed, and 2 on invalid arguments.
+ */
+class MamlBatchStarter : ApplicationStarter {
+
+    override val requiredModality: Int
+        get() = ApplicationStarter.NOT_IN_EDT
+
+    private class Arguments(
+        val check: Boolean,
+        val format: Boolean,
+        val validate: Boolean,
+        val threads: Int,
+        val project: Path?,
+        val report: Path?,
+        val paths: List<Path>
+    )
+
+    override fun main(args: List<String>) {
+        val arguments = parseArguments(args.drop(1)) ?: run {
+            System.err.println(USAGE)
+            exitProcess(2)
+        }
+
+        val project = arguments.project?.let { openProject(it) } ?: ProjectManager.getInstance().defaultProject
+        val files = collectFiles(arguments.paths)
+        val options = MamlBatchProcessor.Options(
+            format = arguments.format,
+            validate = arguments.validate,
+            write = !arguments.check,
+            threads = arguments.threads
+        )
+        val report = MamlBatchProcessor(project, options).process(files)
+
+        val json = report.toJson()
+        if (arguments.report != null) {
+            Files.writeString(arguments.report, json)
+        } else {
+            print(json)
+        }
+
+        val failed = report.problemCount > 0 || report.errorCount > 0 || (arguments.check && report.changedCount > 0)
+        exitProcess(if (failed) 1 else 0)
+    }
+
+    private fun parseArguments(args: List<String>): Arguments? {
+        var check = false
+        var format = true
+        var validate = true
+        var threads = Runtime.getRuntime().availableProcessors()
+        var project: Path? = null
+        var report: Path? = null
+        val paths = mutableListOf<Path>()
+
+        val iterator = args.iterator()
+        while (iterator.hasNext()) {
+            when (val arg = iterator.next()) {
+                "--check" -> check = true
+                "--no-format" -> format = false
+                "--no-validate" -> validate = false
+                "--threads" -> threads = iterator.nextOrNull()?.toIntOrNull()?.takeIf { it > 0 } ?: return null
+                "--project" -> project = iterator.nextOrNull()?.let(Path::of) ?: return null
+                "--report" -> report = iterator.nextOrNull()?.let(Path::of) ?: return null
+                else -> if (arg.startsWith("--")) return null else paths += Path.of(arg)
+            }
+        }
+        if (paths.isEmpty() || (!format && !validate)) {
+            return null
+        }
+        return Arguments(check, format, validate, threads, project, report, paths)
+    }
+
+    private fun Iterator<String>.nextOrNull(): String? = if (hasNext()) next() else null
+
+    private fun openProject(path: Path): Project? =
+        ProjectManagerEx.getInstanceEx().openProject(path.toAbsolutePath(), OpenProjectTask {})
+
+    private fun collectFiles(paths: List<Path>): List<VirtualFile> {
+        val fileSystem = LocalFileSystem.getInstance()
+        val files = mutableListOf<VirtualFile>()
+        for (path in paths) {
+            val root = fileSystem.refreshAndFindFileByNioFile(path.toAbsolutePath()) ?: continue
+            VfsUtilCore.iterateChildrenRecursively(root, null) { file ->
+                if (!file.isDirectory && file.fileType is MamlFileType) {
+                    files += file
+                }
+                true
+            }
+        }
+        return files
+    }
+
+    companion object {
+        private const val USAGE =
+            "Usage: maml-batch [--check] [--no-format] [--no-validate] [--threads N] [--project DIR] [--report FILE] PATH..."
+    }
+}
@@ -1,25 +1,30 @@
 package com.davidseptimus.maml.completion
 
+import com.davidseptimus.maml.index.MamlKeyPathIndex
+import com.davidseptimus.maml.lang.psi.MamlArray
 import com.davidseptimus.maml.lang.psi.MamlKey
 import com.davidseptimus.maml.lang.psi.MamlObject
-import com.davidseptimus.maml.lang.psi.MamlRecursiveElementVisitor
 import com.davidseptimus.maml.lang.psi.MamlTypes
 import com.davidseptimus.maml.lang.psi.MamlValue
 import com.davidseptimus.maml.settings.MamlSettings
 import com.intellij.codeInsight.completion.*
 import com.intellij.codeInsight.lookup.LookupElementBuilder
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.util.Key
 import com.intellij.patterns.PlatformPatterns
 import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiFile
+import com.intellij.psi.impl.source.tree.CompositeElement
 import com.intellij.psi.util.CachedValueProvider
 import com.intellij.psi.util.CachedValuesManager
-import com.intellij.psi.util.PsiModificationTracker
 import com.intellij.psi.util.elementType
 import com.intellij.psi.util.parentOfType
 import com.intellij.util.ProcessingContext
 
 /**
- * Provides completion suggestions for known keys in the current file.
- * Collects all keys that appear in the file and suggests them when typing a new key.
+ * Provides completion suggestions for known keys.
+ * Suggests all keys that appear in the current file, most frequent first, followed by keys
+ * from other MAML files in the project, which are read from [MamlKeyPathIndex].
  */
 class MamlKnownKeysCompletionContributor : CompletionContributor() {
     init {
@@ -38,6 +43,11 @@ class MamlKnownKeysCompletionContributor : CompletionContributor() {
             PlatformPatterns.psiElement().withElementType(MamlTypes.STRING),
             provider
         )
+        extend(
+            CompletionType.BASIC,
+            PlatformPatterns.psiElement().withElementType(MamlTypes.KEY_STRING),
+            provider
+        )
     }
 
     private class KnownKeysCompletionProvider : CompletionProvider<CompletionParameters>() {
@@ -57,20 +67,7 @@ class MamlKnownKeysCompletionContributor : CompletionContributor() {
             }
 
             val file = parameters.originalFile
-            val knownKeys = CachedValuesManager.getCachedValue(file) {
-                val keys = mutableSetOf<String>()
-
-                file.accept(object : MamlRecursiveElementVisitor() {
-                    override fun visitElement(element: PsiElement) {
-                        if (element is MamlKey) {
-                            element.name?.let { keys.add(it) }
-                        }
-                        super.visitElement(element)
-                    }
-                })
-
-                CachedValueProvider.Result.create(keys, PsiModificationTracker.MODIFICATION_COUNT)
-            }
+            val keyCounts = KeyOccurrences.count(file)
 
             // Get existing keys in the current object
             val currentObject = position.parentOfType<MamlObject>()
@@ -78,16 +75,86 @@ class MamlKnownKeysCompletionContributor : CompletionContributor() {
                 ?.mapNotNull { it.key.name }
                 ?.toSet() ?: emptySet()
 
-            // Filter out keys that already exist in the current object
-            val availableKeys = knownKeys - existingKeys
+            // Add completion items for each available key, most frequent first
+            for ((key, count) in keyCounts) {
+                // Filter out keys that already exist in the current object
+                if (key in existingKeys) continue
+                result.addElement(
+                    PrioritizedLookupElement.withPriority(
+                        LookupElementBuilder.create(key)
+                            .withTypeText("known key"),
+                        count.toDouble()
+                    )
+                )
+            }
 
-            // Add completion items for each available key
-            for (key in availableKeys.sorted()) {
+            // Keys from other files come from the index, which is unavailable while indexing
+            val project = file.project
+            if (DumbService.isDumb(project)) return
+            val projectKeys = MamlKeyPathIndex.getAllKeyNames(project) -
+                keyCounts.keys - existingKeys
+            for (key in projectKeys.sorted()) {
                 result.addElement(
-                    LookupElementBuilder.create(key)
-                        .withTypeText("known key")
+                    PrioritizedLookupElement.withPriority(
+                        LookupElementBuilder.create(key)
+                            .withTypeText("project key"),
+                        -1.0
+                    )
                 )
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Number of occurrences of each key in a file.
+     *
+     * Objects and arrays of at least [MIN_CACHED_LENGTH] characters keep their counts along with
+     * their subtree modification count, so after an edit only the large containers enclosing it are
+     * counted again, merging the counts of the other large containers in them. Smaller containers
+     * are cheap to count and are counted into their parent without a map of their own, so at each
+     * nesting level at most one map per [MIN_CACHED_LENGTH] characters of text is kept with the file.
+     */
+    private object KeyOccurrences {
+        private const val MIN_CACHED_LENGTH = 4096
+
+        private class ContainerCounts(val modificationCount: Int, val counts: Map<String, Int>)
+
+        private val CONTAINER_COUNTS = Key.create<ContainerCounts>("maml.known.keys.counts")
+
+        fun count(file: PsiFile): Map<String, Int> = CachedValuesManager.getCachedValue(file) {
+            val counts = HashMap<String, Int>()
+            collect(file, counts)
+            CachedValueProvider.Result.create(counts, file)
+        }
+
+        private fun countIn(container: PsiElement): Map<String, Int> {
+            val modificationCount = (container.node as? CompositeElement)?.modificationCount
+            val cached = container.getUserData(CONTAINER_COUNTS)
+            if (cached != null && cached.modificationCount == modificationCount) return cached.counts
+
+            val counts = HashMap<String, Int>()
+            collect(container, counts)
+            if (modificationCount != null) {
+                container.putUserData(CONTAINER_COUNTS, ContainerCounts(modificationCount, counts))
+            }
+            return counts
+        }
+
+        private fun collect(element: PsiElement, counts: MutableMap<String, Int>) {
+            var child = element.firstChild
+            while (child != null) {
+                when (child) {
+                    is MamlObject, is MamlArray -> if (child.textLength < MIN_CACHED_LENGTH) {
+                        collect(child, counts)
+                    } else {
+                        countIn(child).forEach { (key, count) -> counts.merge(key, count, Int::plus) }
+                    }
+
+                    is MamlKey -> child.name?.let { counts.merge(it, 1, Int::plus) }
+                    else -> collect(child, counts)
+                }
+                child = child.nextSibling
+            }
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.davidseptimus.maml.editor
 
-import com.davidseptimus.maml.lang.psi.MamlArray
-import com.davidseptimus.maml.lang.psi.MamlObject
 import com.davidseptimus.maml.lang.psi.MamlTypes
 import com.davidseptimus.maml.settings.MamlSettings
 import com.intellij.lang.ASTNode
@@ -10,101 +8,79 @@ import com.intellij.lang.folding.FoldingDescriptor
 import com.intellij.openapi.editor.Document
 import com.intellij.openapi.util.TextRange
 import com.intellij.psi.PsiElement
-import com.intellij.psi.util.PsiTreeUtil
 
+/**
+ * Folds multi-line objects, arrays, multiline strings and blocks of consecutive comment lines.
+ *
+ * All regions are collected in a single walk over the AST in document order. In quick mode, used
+ * when an editor is opened, at most [QUICK_MODE_MAX_REGIONS] regions are collected from the start
+ * of the file; the remaining ones are added by the regular folding pass that follows.
+ */
 class MamlFoldingBuilder : FoldingBuilderEx() {
 
+    companion object {
+        private const val QUICK_MODE_MAX_REGIONS = 1_000
+        private const val TRIPLE_QUOTE = "\"\"\""
+    }
+
     override fun buildFoldRegions(
         root: PsiElement,
         document: Document,
         quick: Boolean
     ): Array<FoldingDescriptor> {
+        val collector = RegionCollector(document, if (quick) QUICK_MODE_MAX_REGIONS else Int.MAX_VALUE)
+        collector.visit(root.node)
+        collector.finishCommentBlock()
+        return collector.descriptors.toTypedArray()
+    }
+
+    private inner class RegionCollector(private val document: Document, private val maxRegions: Int) {
         val descriptors = mutableListOf<FoldingDescriptor>()
 
-        // Fold objects
-        PsiTreeUtil.findChildrenOfType(root, MamlObject::class.java).forEach { obj ->
-            val range = obj.textRange
-            if (isMultiLine(range, document)) {
-                descriptors.add(FoldingDescriptor(obj.node, range))
-            }
-        }
+        // First and last comment of the block of consecutive comment lines being collected
+        private var commentBlockStart: ASTNode? = null
+        private var lastComment: ASTNode? = null
 
-        // Fold arrays
-        PsiTreeUtil.findChildrenOfType(root, MamlArray::class.java).forEach { array ->
-            val range = array.textRange
-            if (isMultiLine(range, document)) {
-                descriptors.add(FoldingDescriptor(array.node, range))
+        private val isFull: Boolean get() = descriptors.size >= maxRegions
+
+        fun visit(node: ASTNode) {
+            when (node.elementType) {
+                MamlTypes.OBJECT, MamlTypes.ARRAY, MamlTypes.MULTILINE_STRING -> addIfMultiLine(node, node.textRange)
+                MamlTypes.COMMENT -> addComment(node)
             }
-        }
 
-        // Fold multiline strings
-        PsiTreeUtil.findChildrenOfType(root, PsiElement::class.java).forEach { element ->
-            if (element.node.elementType == MamlTypes.MULTILINE_STRING) {
-                val range = element.textRange
-                if (isMultiLine(range, document)) {
-                    descriptors.add(FoldingDescriptor(element.node, range))
-                }
+            var child = node.firstChildNode
+            while (child != null && !isFull) {
+                visit(child)
+                child = child.treeNext
             }
         }
 
-        // Fold consecutive comment blocks
-        foldCommentBlocks(root, document, descriptors)
-
-        return descriptors.toTypedArray()
-    }
-
-    private fun foldCommentBlocks(
-        root: PsiElement,
-        document: Document,
-        descriptors: MutableList<FoldingDescriptor>
-    ) {
-        val comments = PsiTreeUtil.findChildrenOfType(root, PsiElement::class.java)
-            .filter { it.node.elementType == MamlTypes.COMMENT }
-            .sortedBy { it.textRange.startOffset }
-
-        if (comments.isEmpty()) return
-
-        var blockStart: PsiElement? = null
-        var lastComment: PsiElement? = null
-
-        for (comment in comments) {
-            if (blockStart == null) {
-                // Start a new comment block
-                blockStart = comment
+        private fun addComment(comment: ASTNode) {
+            val last = lastComment
+            // Comments on the next line continue the block
+            if (last != null &&
+                document.getLineNumber(comment.startOffset) - document.getLineNumber(last.textRange.endOffset) <= 1
+            ) {
                 lastComment = comment
-            } else {
-                // Check if this comment is on the next line (or close enough to be consecutive)
-                val lastLine = document.getLineNumber(lastComment!!.textRange.endOffset)
-                val currentLine = document.getLineNumber(comment.textRange.startOffset)
-
-                if (currentLine - lastLine <= 1) {
-                    // Continue the block
-                    lastComment = comment
-                } else {
-                    // End the previous block and start a new one
-                    if (isMultiLine(TextRange(blockStart.textRange.startOffset, lastComment.textRange.endOffset), document)) {
-                        descriptors.add(
-                            FoldingDescriptor(
-                                blockStart.node,
-                                TextRange(blockStart.textRange.startOffset, lastComment.textRange.endOffset)
-                            )
-                        )
-                    }
-                    blockStart = comment
-                    lastComment = comment
-                }
+                return
             }
+            finishCommentBlock()
+            commentBlockStart = comment
+            lastComment = comment
         }
 
-        // Don't forget the last block
-        if (blockStart != null && lastComment != null) {
-            if (isMultiLine(TextRange(blockStart.textRange.startOffset, lastComment.textRange.endOffset), document)) {
-                descriptors.add(
-                    FoldingDescriptor(
-                        blockStart.node,
-                        TextRange(blockStart.textRange.startOffset, lastComment.textRange.endOffset)
-                    )
-                )
+        fun finishCommentBlock() {
+            val start = commentBlockStart ?: return
+            val end = lastComment ?: return
+            addIfMultiLine(start, TextRange(start.startOffset, end.textRange.endOffset))
+            commentBlockStart = null
+            lastComment = null
+        }
+
+        private fun addIfMultiLine(node: ASTNode, range: TextRange) {
+            if (!isFull && isMultiLine(range, document)) {
+                descriptors.add(FoldingDescriptor(node, range))
             }
         }
     }
@@ -127,48 +103,68 @@ class MamlFoldingBuilder : FoldingBuilderEx() {
 
     private fun getMultilineStringPlaceholder(node: ASTNode): String {
         val settings = MamlSettings.Companion.getInstance()
-        val text = node.text
-
-        // Remove the triple quotes
-        val content = text.removePrefix("\"\"\"").removeSuffix("\"\"\"")
-
-        // Get the first line
-        val firstLine = content.lines().firstOrNull()?.trim() ?: ""
+        val text = node.chars
+
+        // Skip the triple quotes
+        val contentStart = if (text.startsWith(TRIPLE_QUOTE)) TRIPLE_QUOTE.length else 0
+        val contentEnd = if (text.length - contentStart >= TRIPLE_QUOTE.length && text.endsWith(TRIPLE_QUOTE)) {
+            text.length - TRIPLE_QUOTE.length
+        } else {
+            text.length
+        }
 
-        if (firstLine.isEmpty()) {
+        // Take first N words of the first line
+        val preview = firstLineWords(text, contentStart, contentEnd, settings.multilineStringPreviewWords)
+        if (preview.isEmpty()) {
             return "\"\"\"...\"\"\""
         }
 
-        // Take first N words
-        val preview = firstLine.split(Regex("\\s+"))
-            .take(settings.multilineStringPreviewWords)
-            .joinToString(" ")
-
         return "\"\"\"$preview...\"\"\""
     }
 
     private fun getCommentPlaceholder(node: ASTNode): String {
         val settings = MamlSettings.Companion.getInstance()
-        val text = node.text
-
-        // Get the first line of the comment block
-        val firstLine = text.lines().firstOrNull() ?: return "# ..."
-
-        // Remove the # and any leading whitespace
-        val content = firstLine.removePrefix("#").trim()
+        val text = node.chars
 
-        if (content.isEmpty()) {
+        // Skip the # and take first N words of the first line of the comment block
+        val contentStart = if (text.startsWith('#')) 1 else 0
+        val preview = firstLineWords(text, contentStart, text.length, settings.commentPreviewWords)
+        if (preview.isEmpty()) {
             return "# ..."
         }
 
-        // Take first N words
-        val preview = content.split(Regex("\\s+"))
-            .take(settings.commentPreviewWords)
-            .joinToString(" ")
-
         return "# $preview..."
     }
 
+    /**
+     * Joins the first [maxWords] words of the line starting at [start] with single spaces, reading
+     * no further than needed, so the cost does not depend on the length of [text].
+     */
+    private fun firstLineWords(text: CharSequence, start: Int, end: Int, maxWords: Int): String {
+        val preview = StringBuilder()
+        var words = 0
+        var index = start
+        while (index < end && words < maxWords) {
+            val char = text[index]
+            if (char == '\n' || char == '\r') {
+                break
+            }
+            if (char.isWhitespace()) {
+                index++
+                continue
+            }
+            if (words > 0) {
+                preview.append(' ')
+            }
+            while (index < end && !text[index].isWhitespace()) {
+                preview.append(text[index])
+                index++
+            }
+            words++
+        }
+        return preview.toString()
+    }
+
     override fun isCollapsedByDefault(node: ASTNode): Boolean {
         // Don't collapse anything by default
         return false
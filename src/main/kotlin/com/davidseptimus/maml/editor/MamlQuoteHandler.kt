@@ -3,4 +3,9 @@ package com.davidseptimus.maml.editor
 import com.davidseptimus.maml.lang.psi.MamlTypes
 import com.intellij.codeInsight.editorActions.SimpleTokenSetQuoteHandler
 
-class MamlQuoteHandler : SimpleTokenSetQuoteHandler(MamlTypes.STRING, MamlTypes.MULTILINE_STRING, MamlTypes.UNTERMINATED_STRING)
\ No newline at end of file
+class MamlQuoteHandler : SimpleTokenSetQuoteHandler(
+    MamlTypes.STRING,
+    MamlTypes.KEY_STRING,
+    MamlTypes.MULTILINE_STRING,
+    MamlTypes.UNTERMINATED_STRING
+)
\ No newline at end of file
@@ -9,6 +9,16 @@ import com.intellij.psi.PsiElement
 import com.intellij.psi.TokenType
 import com.intellij.psi.tree.TokenSet
 
+/**
+ * Formatting block for a MAML node.
+ *
+ * Sub-blocks are built on demand, and only for the part of the tree around [formattingRange]:
+ * children that do not touch the range become leaf blocks spanning their original text, so
+ * formatting a small range (e.g. adjusting the indent on Enter) does not build blocks for the
+ * whole file. Properties outside the range are still built one level deep when properties are
+ * aligned, since their colons and values take part in the alignment of the ones inside it.
+ * A null [formattingRange] builds blocks for the whole tree.
+ */
 class MamlBlock(
     private val parent: MamlBlock?,
     private val node: ASTNode,
@@ -16,7 +26,9 @@ class MamlBlock(
     private val alignment: Alignment?,
     private val indent: Indent,
     private val wrap: Wrap?,
-    private val spacingBuilder: SpacingBuilder
+    private val spacingBuilder: SpacingBuilder,
+    private val formattingRange: TextRange? = null,
+    private val collapsed: Boolean = false
 ) : ASTBlock {
 
     private val psiElement: PsiElement = node.psi
@@ -38,6 +50,9 @@ class MamlBlock(
     override fun getTextRange(): TextRange = node.textRange
 
     override fun getSubBlocks(): List<Block> {
+        if (collapsed) {
+            return emptyList()
+        }
         if (subBlocks == null) {
             val propertyAlignment = customSettings.PROPERTY_ALIGNMENT
             val children = node.getChildren(null)
@@ -93,10 +108,22 @@ class MamlBlock(
             alignment,
             indent,
             wrap,
-            spacingBuilder
+            spacingBuilder,
+            formattingRange,
+            isOutsideFormattingRange(childNode, propertyAlignment)
         )
     }
 
+    private fun isOutsideFormattingRange(childNode: ASTNode, propertyAlignment: Int): Boolean {
+        val range = formattingRange ?: return false
+        // Touching the range counts as inside, so the whitespace at its ends is formatted as usual
+        if (childNode.textRange.intersects(range) || childNode.firstChildNode == null) {
+            return false
+        }
+        return !(MamlPsiUtil.hasElementType(childNode, KEY_VALUE) &&
+                propertyAlignment != MamlCodeStyleSettings.DO_NOT_ALIGN_PROPERTY)
+    }
+
     override fun getWrap(): Wrap? = wrap
 
     override fun getIndent(): Indent = indent
@@ -136,7 +163,7 @@ class MamlBlock(
         }
     }
 
-    override fun isLeaf(): Boolean = node.firstChildNode == null
+    override fun isLeaf(): Boolean = collapsed || node.firstChildNode == null
 
     companion object {
         private val MAML_OPEN_BRACES = TokenSet.create(LBRACKET, LBRACE)
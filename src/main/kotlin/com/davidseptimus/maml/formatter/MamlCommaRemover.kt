@@ -1,23 +1,18 @@
 package com.davidseptimus.maml.formatter
 
-import com.davidseptimus.maml.lang.MamlLanguage
-import com.davidseptimus.maml.lang.psi.MamlArray
-import com.davidseptimus.maml.lang.psi.MamlElementFactory
-import com.davidseptimus.maml.lang.psi.MamlObject
 import com.davidseptimus.maml.lang.psi.MamlTypes
-import com.intellij.application.options.CodeStyle
+import com.davidseptimus.maml.util.MamlSpacingUtil
 import com.intellij.lang.ASTNode
 import com.intellij.openapi.util.TextRange
-import com.intellij.psi.PsiElement
-import com.intellij.psi.PsiWhiteSpace
+import com.intellij.psi.PsiDocumentManager
 import com.intellij.psi.TokenType
-import com.intellij.psi.impl.source.codeStyle.PreFormatProcessor
 import com.intellij.psi.impl.source.tree.LeafPsiElement
+import com.intellij.util.DocumentUtil
 
 /**
- * Pre-format processor that removes commas from MAML code and ensures one item per line.
- *  *
- *  * When removing commas, this processor ensures that items are on separate lines,
+ * Pre-format step that removes commas from MAML code and ensures one item per line.
+ *
+ * When removing commas, this step ensures that items are on separate lines,
  * since commas are required when items are on the same line.
  *
  * For example:
@@ -27,126 +22,104 @@ import com.intellij.psi.impl.source.tree.LeafPsiElement
  * [1\n2\n3] -> [1\n2\n3]  (already valid)
  * ```
  */
-class MamlCommaRemover : PreFormatProcessor {
-
-    override fun process(element: ASTNode, range: TextRange): TextRange {
-        val psi = element.psi
-        val file = psi.containingFile ?: return range
-
-        if (!file.language.isKindOf(MamlLanguage)) {
-            return range
-        }
-
-        val customSettings = CodeStyle.getCustomSettings(file, MamlCodeStyleSettings::class.java)
-        if (!customSettings.REMOVE_COMMAS) {
-            return range
-        }
-
-        // Process containers to add newlines where needed
-        processContainers(psi)
+internal class MamlCommaRemover private constructor() : MamlPreFormatStep {
 
-        // Remove commas from the AST
-        removeCommas(element)
-
-        return TextRange.create(element.startOffset, element.startOffset + element.textLength)
+    companion object {
+        fun create(customSettings: MamlCodeStyleSettings): MamlCommaRemover? =
+            if (customSettings.REMOVE_COMMAS) MamlCommaRemover() else null
     }
 
-    private fun removeCommas(node: ASTNode) {
-        var child = node.firstChildNode
-        while (child != null) {
-            val next = child.treeNext
+    /**
+     * A comma to replace with [replacement], recorded during the traversal.
+     */
+    private class CommaEdit(val comma: ASTNode, val replacement: String)
 
-            if (child.elementType == MamlTypes.COMMA) {
-                handleCommaRemoval(node, child)
-            } else {
-                // Recursively process children
-                removeCommas(child)
-            }
+    private class TextEdit(val range: TextRange, val text: String)
 
-            child = next
-        }
-    }
+    // Items followed by an item on the same line, which need a newline after them
+    private val newlineAnchors = LinkedHashSet<ASTNode>()
+    private val commaEdits = mutableListOf<CommaEdit>()
 
     /**
-     * Process all containers (arrays and objects) in the tree.
+     * Records where the container needs newlines to keep one item per line once its commas are gone.
      */
-    private fun processContainers(element: PsiElement) {
-        // First recursively process children to handle nested structures
-        element.children.forEach { processContainers(it) }
-
-        // Then process the current element
-        when (element) {
-            is MamlArray -> processArray(element)
-            is MamlObject -> processObject(element)
-        }
+    override fun visitContainer(container: ASTNode, range: TextRange): Int {
+        processItems(MamlSpacingUtil.itemLayout(container.psi), range)
+        return 0
     }
 
-    /**
-     * Process an array: ensure one item per line.
-     */
-    private fun processArray(array: MamlArray) {
-        val items = array.items ?: return
-        val values = items.valueList
-
-        if (values.size < 2) return
-
-        // Process from end to beginning to avoid index issues
-        for (i in values.size - 1 downTo 1) {
-            val currentValue = values[i - 1]
-            val nextValue = values[i]
-
-            // If they're on the same line, insert a newline
-            if (areSameLine(currentValue, nextValue)) {
-                val newline = MamlElementFactory.createNewline(array.project)
-                items.addAfter(newline, currentValue)
-            }
+    override fun visitLeaf(leaf: ASTNode): Int? {
+        if (leaf.elementType != MamlTypes.COMMA) {
+            return null
         }
+        commaEdits += CommaEdit(leaf, replacementOf(leaf))
+        return 0
     }
 
     /**
-     * Process an object: ensure one key-value per line.
+     * Applies all recorded comma removals and newline insertions as a single bulk document change,
+     * instead of changing the tree once per comma.
      */
-    private fun processObject(obj: MamlObject) {
-        val members = obj.members ?: return
-        val keyValues = members.keyValueList
-
-        if (keyValues.size < 2) return
+    override fun finish(root: ASTNode): Int {
+        if (commaEdits.isEmpty() && newlineAnchors.isEmpty()) {
+            return 0
+        }
 
-        // Process from end to beginning to avoid index issues
-        for (i in keyValues.size - 1 downTo 1) {
-            val currentKv = keyValues[i - 1]
-            val nextKv = keyValues[i]
+        // Offsets are taken from the tree as left by the other steps
+        val edits = commaEdits.map { TextEdit(it.comma.textRange, it.replacement) } +
+                newlineAnchors.map { TextEdit(TextRange.from(it.textRange.endOffset, 0), "\n") }
+        val lengthDelta = edits.sumOf { it.text.length - it.range.length }
+
+        val file = root.psi.containingFile
+        val psiDocumentManager = PsiDocumentManager.getInstance(file.project)
+        val document = psiDocumentManager.getDocument(file)
+        if (document == null) {
+            // Without a document, e.g. for a non-physical copy, change the tree directly
+            commaEdits.asReversed().forEach { applyToTree(it) }
+            newlineAnchors.forEach { anchor ->
+                anchor.treeParent.addLeaf(TokenType.WHITE_SPACE, "\n", anchor.treeNext)
+            }
+            return lengthDelta
+        }
 
-            // If they're on the same line, insert a newline
-            if (areSameLine(currentKv, nextKv)) {
-                val newline = MamlElementFactory.createNewline(obj.project)
-                members.addAfter(newline, currentKv)
+        psiDocumentManager.doPostponedOperationsAndUnblockDocument(document)
+        DocumentUtil.executeInBulk(document) {
+            // Apply from the end so that earlier offsets stay valid
+            val ordered = edits.sortedWith(compareByDescending<TextEdit> { it.range.startOffset }.thenBy { it.range.isEmpty })
+            for (edit in ordered) {
+                document.replaceString(edit.range.startOffset, edit.range.endOffset, edit.text)
             }
         }
+        psiDocumentManager.commitDocument(document)
+        return lengthDelta
     }
 
     /**
-     * Check if two elements are on the same line.
+     * Records the items of an array or the key-values of an object that are followed by an item
+     * on the same line starting inside the range.
      */
-    private fun areSameLine(first: PsiElement, second: PsiElement): Boolean {
-        var current: PsiElement? = first.nextSibling
-        while (current != null && current != second) {
-            if (current is PsiWhiteSpace && current.text.contains('\n')) {
-                return false
+    private fun processItems(layout: MamlSpacingUtil.ItemLayout, range: TextRange) {
+        for (pair in 0 until layout.pairCount) {
+            val next = layout.items[pair + 1]
+            if (range.contains(next.textRange.startOffset) && layout.isSameLine(pair)) {
+                newlineAnchors += layout.items[pair].node
             }
-            current = current.nextSibling
         }
-        return true
     }
 
-
     /**
-     * Remove a comma, potentially replacing it with whitespace if needed for separation.
+     * Returns the text replacing a comma: a newline if the item before it needs one, a space if
+     * the comma is the only thing separating its neighbours, and nothing otherwise.
      */
-    private fun handleCommaRemoval(parent: ASTNode, commaNode: ASTNode) {
+    private fun replacementOf(commaNode: ASTNode): String {
         val nextSibling = commaNode.treeNext
         val prevSibling = commaNode.treePrev
 
+        // The newline takes the place of the comma
+        if (prevSibling != null && newlineAnchors.remove(prevSibling)) {
+            return "\n"
+        }
+
         // Check if we need to insert a space to maintain separation
         val needsSpace = when {
             nextSibling == null -> false
@@ -155,14 +128,15 @@ class MamlCommaRemover : PreFormatProcessor {
             prevSibling.elementType == TokenType.WHITE_SPACE -> false
             else -> true
         }
+        return if (needsSpace) " " else ""
+    }
 
-        if (needsSpace) {
-            // Replace comma with a space
-            val spaceNode = LeafPsiElement(TokenType.WHITE_SPACE, " ")
-            parent.replaceChild(commaNode, spaceNode)
+    private fun applyToTree(edit: CommaEdit) {
+        val parent = edit.comma.treeParent
+        if (edit.replacement.isEmpty()) {
+            parent.removeChild(edit.comma)
         } else {
-            // Just remove the comma
-            parent.removeChild(commaNode)
+            parent.replaceChild(edit.comma, LeafPsiElement(TokenType.WHITE_SPACE, edit.replacement))
         }
     }
-}
\ No newline at end of file
+}
@@ -1,65 +1,51 @@
 package com.davidseptimus.maml.formatter
 
-import com.davidseptimus.maml.lang.MamlLanguage
 import com.davidseptimus.maml.lang.psi.MamlTypes
-import com.intellij.application.options.CodeStyle
 import com.intellij.lang.ASTNode
-import com.intellij.openapi.util.TextRange
 import com.intellij.psi.impl.source.codeStyle.CodeEditUtil
-import com.intellij.psi.impl.source.codeStyle.PreFormatProcessor
 import com.intellij.psi.impl.source.tree.LeafPsiElement
 
 /**
- * Pre-format processor that ensures proper spacing after the hash (#) in MAML comments.
+ * Pre-format step that ensures proper spacing after the hash (#) in MAML comments.
  * Supports three modes: ANY (no enforcement), AT_LEAST_ONE (ensure at least one space),
  * and EXACTLY_ONE (normalize to exactly one space).
  */
-class MamlCommentLeadingSpaceInserter : PreFormatProcessor {
+internal class MamlCommentLeadingSpaceInserter private constructor(
+    private val spaceOption: Int
+) : MamlPreFormatStep {
 
-    override fun process(element: ASTNode, range: TextRange): TextRange {
-        val psi = element.psi
-        val file = psi.containingFile ?: return range
-
-        if (!file.language.isKindOf(MamlLanguage)) {
-            return range
+    companion object {
+        fun create(customSettings: MamlCodeStyleSettings): MamlCommentLeadingSpaceInserter? {
+            val spaceOption = customSettings.SPACE_AFTER_COMMENT_HASH
+            return if (spaceOption != CommentHashSpaceOptions.ANY.id) MamlCommentLeadingSpaceInserter(spaceOption) else null
         }
+    }
 
-        val customSettings = CodeStyle.getCustomSettings(file, MamlCodeStyleSettings::class.java)
-        val spaceOption = customSettings.SPACE_AFTER_COMMENT_HASH
-
-        if (spaceOption != CommentHashSpaceOptions.ANY.id) {
-            processComments(element, spaceOption)
+    override fun visitLeaf(leaf: ASTNode): Int? {
+        if (leaf.elementType != MamlTypes.COMMENT) {
+            return null
         }
 
-        return TextRange.create(element.startOffset, element.startOffset + element.textLength)
-    }
+        val text = leaf.text
+        if (text.isEmpty() || text[0] != '#') {
+            return null
+        }
 
-    private fun processComments(node: ASTNode, spaceOption: Int) {
-        var child = node.firstChildNode
-        while (child != null) {
-            val next = child.treeNext
-            if (child.elementType == MamlTypes.COMMENT) {
-                val text = child.text
-                if (text.isNotEmpty() && text[0] == '#') {
-                    val newText = when (spaceOption) {
-                        CommentHashSpaceOptions.AT_LEAST_ONE.id -> ensureAtLeastOneSpace(text)
-                        CommentHashSpaceOptions.EXACTLY_ONE.id -> ensureExactlyOneSpace(text)
-                        else -> null
-                    }
+        val newText = when (spaceOption) {
+            CommentHashSpaceOptions.AT_LEAST_ONE.id -> ensureAtLeastOneSpace(text)
+            CommentHashSpaceOptions.EXACTLY_ONE.id -> ensureExactlyOneSpace(text)
+            else -> null
+        }
 
-                    if (newText != null && newText != text) {
-                        val newComment = LeafPsiElement(MamlTypes.COMMENT, newText)
-                        // Mark as generated so formatter doesn't check old indentation
-                        CodeEditUtil.setNodeGenerated(newComment, true)
-                        node.replaceChild(child, newComment)
-                    }
-                }
-            } else {
-                // Recursively process children
-                processComments(child, spaceOption)
-            }
-            child = next
+        if (newText == null || newText == text) {
+            return null
         }
+
+        val newComment = LeafPsiElement(MamlTypes.COMMENT, newText)
+        // Mark as generated so formatter doesn't check old indentation
+        CodeEditUtil.setNodeGenerated(newComment, true)
+        leaf.treeParent.replaceChild(leaf, newComment)
+        return newText.length - text.length
     }
 
     private fun ensureAtLeastOneSpace(text: String): String? {
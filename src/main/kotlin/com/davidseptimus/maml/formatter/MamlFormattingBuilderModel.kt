@@ -17,7 +17,8 @@ class MamlFormattingBuilderModel : FormattingModelBuilder {
             alignment = null,
             indent = Indent.getSmartIndent(Indent.Type.CONTINUATION),
             wrap = null,
-            spacingBuilder = spacingBuilder
+            spacingBuilder = spacingBuilder,
+            formattingRange = formattingContext.formattingRange
         )
         return FormattingModelProvider.createFormattingModelForPsiFile(
             formattingContext.containingFile,
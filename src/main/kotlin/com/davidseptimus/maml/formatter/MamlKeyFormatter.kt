@@ -1,17 +1,12 @@
 package com.davidseptimus.maml.formatter
 
-import com.davidseptimus.maml.lang.MamlLanguage
-import com.davidseptimus.maml.lang.psi.MamlKey
 import com.davidseptimus.maml.lang.psi.MamlTypes
-import com.intellij.application.options.CodeStyle
 import com.intellij.lang.ASTNode
-import com.intellij.openapi.util.TextRange
 import com.intellij.psi.impl.source.codeStyle.CodeEditUtil
-import com.intellij.psi.impl.source.codeStyle.PreFormatProcessor
 import com.intellij.psi.impl.source.tree.LeafPsiElement
 
 /**
- * Pre-format processor that modifies key quoting based on the configured style.
+ * Pre-format step that modifies key quoting based on the configured style.
  *
  * Supports three modes:
  * 1. DO_NOT_MODIFY: Leaves keys as-is
@@ -34,63 +29,52 @@ import com.intellij.psi.impl.source.tree.LeafPsiElement
  *   hello_world: 123     -> "hello_world": 123
  * ```
  */
-class MamlKeyFormatter : PreFormatProcessor {
-
-    override fun process(element: ASTNode, range: TextRange): TextRange {
-        val psi = element.psi
-        val file = psi.containingFile ?: return range
-
-        if (!file.language.isKindOf(MamlLanguage)) {
-            return range
-        }
-
-        val customSettings = CodeStyle.getCustomSettings(file, MamlCodeStyleSettings::class.java)
-        val quotingStyle =
-            MamlCodeStyleSettings.KeyQuotingStyle.entries.find { it.id == customSettings.KEY_QUOTING_STYLE }
-                ?: MamlCodeStyleSettings.KeyQuotingStyle.DO_NOT_MODIFY
-
-        when (quotingStyle) {
-            MamlCodeStyleSettings.KeyQuotingStyle.REMOVE_QUOTES -> {
-                unquoteKeys(element)
+internal class MamlKeyFormatter private constructor(
+    private val quotingStyle: MamlCodeStyleSettings.KeyQuotingStyle
+) : MamlPreFormatStep {
+
+    companion object {
+        fun create(customSettings: MamlCodeStyleSettings): MamlKeyFormatter? {
+            val quotingStyle =
+                MamlCodeStyleSettings.KeyQuotingStyle.entries.find { it.id == customSettings.KEY_QUOTING_STYLE }
+                    ?: MamlCodeStyleSettings.KeyQuotingStyle.DO_NOT_MODIFY
+            if (quotingStyle == MamlCodeStyleSettings.KeyQuotingStyle.DO_NOT_MODIFY) {
+                return null
             }
-
-            MamlCodeStyleSettings.KeyQuotingStyle.ADD_QUOTES -> {
-                quoteKeys(element)
-            }
-
-            else -> {}
+            return MamlKeyFormatter(quotingStyle)
         }
-
-        return TextRange.create(element.startOffset, element.startOffset + element.textLength)
     }
 
-    private fun unquoteKeys(node: ASTNode) {
-        var child = node.firstChildNode
-        while (child != null) {
-            val next = child.treeNext
+    override fun visitLeaf(leaf: ASTNode): Int? {
+        val parent = leaf.treeParent
+        if (parent?.elementType != MamlTypes.KEY) {
+            return null
+        }
 
-            if (child.elementType == MamlTypes.STRING && child.psi.parent is MamlKey) {
-                tryUnquoteKey(node, child)
-            } else {
-                // Recursively process children
-                unquoteKeys(child)
-            }
+        return when (quotingStyle) {
+            MamlCodeStyleSettings.KeyQuotingStyle.REMOVE_QUOTES ->
+                if (leaf.elementType == MamlTypes.KEY_STRING || leaf.elementType == MamlTypes.STRING) {
+                    tryUnquoteKey(parent, leaf)
+                } else null
+
+            MamlCodeStyleSettings.KeyQuotingStyle.ADD_QUOTES ->
+                if (leaf.elementType == MamlTypes.IDENTIFIER) tryQuoteKey(parent, leaf) else null
 
-            child = next
+            else -> null
         }
     }
 
     /**
      * Attempts to unquote a string key if it can be safely represented as an identifier.
      */
-    private fun tryUnquoteKey(parent: ASTNode, stringNode: ASTNode) {
+    private fun tryUnquoteKey(parent: ASTNode, stringNode: ASTNode): Int? {
         if (stringNode !is LeafPsiElement) {
-            return
+            return null
         }
 
         val text = stringNode.text
         if (!text.startsWith("\"") || !text.endsWith("\"")) {
-            return
+            return null
         }
 
         // Extract the content between quotes
@@ -101,7 +85,9 @@ class MamlKeyFormatter : PreFormatProcessor {
             val identifierNode = LeafPsiElement(MamlTypes.IDENTIFIER, content)
             CodeEditUtil.setNodeGenerated(identifierNode, true)
             parent.replaceChild(stringNode, identifierNode)
+            return content.length - text.length
         }
+        return null
     }
 
     /**
@@ -126,39 +112,22 @@ class MamlKeyFormatter : PreFormatProcessor {
         return content.all { it.isLetterOrDigit() || it == '_' || it == '-' }
     }
 
-    /**
-     * Converts all identifier keys to quoted string keys.
-     */
-    private fun quoteKeys(node: ASTNode) {
-        var child = node.firstChildNode
-        while (child != null) {
-            val next = child.treeNext
-
-            if (child.elementType == MamlTypes.IDENTIFIER && child.psi.parent is MamlKey) {
-                tryQuoteKey(node, child)
-            } else {
-                // Recursively process children
-                quoteKeys(child)
-            }
-
-            child = next
-        }
-    }
-
     /**
      * Attempts to quote an identifier key as a string.
      */
-    private fun tryQuoteKey(parent: ASTNode, identifierNode: ASTNode) {
+    private fun tryQuoteKey(parent: ASTNode, identifierNode: ASTNode): Int? {
         if (identifierNode !is LeafPsiElement) {
-            return
+            return null
         }
 
         val content = identifierNode.text
         val quotedString = "\"$content\""
 
-        // Replace the identifier with a quoted string
-        val stringNode = LeafPsiElement(MamlTypes.STRING, quotedString)
+        // Replace the identifier with a quoted string, lexed as a key string when a colon follows
+        val tokenType = if (parent.treeParent?.elementType == MamlTypes.KEY_VALUE) MamlTypes.KEY_STRING else MamlTypes.STRING
+        val stringNode = LeafPsiElement(tokenType, quotedString)
         CodeEditUtil.setNodeGenerated(stringNode, true)
         parent.replaceChild(identifierNode, stringNode)
+        return quotedString.length - content.length
     }
 }
\ No newline at end of file
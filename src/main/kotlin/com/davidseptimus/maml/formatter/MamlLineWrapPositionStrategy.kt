@@ -64,6 +64,7 @@ private fun getMinWrapPosition(document: Document, project: Project, offset: Int
 
     when (elementType) {
         MamlTypes.STRING,
+        MamlTypes.KEY_STRING,
         MamlTypes.MULTILINE_STRING,
         MamlTypes.IDENTIFIER,
         MamlTypes.NUMBER,
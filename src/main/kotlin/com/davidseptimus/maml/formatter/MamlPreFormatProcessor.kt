@@ -0,0 +1,95 @@
+package com.davidseptimus.maml.formatter
+
+import com.davidseptimus.maml.lang.MamlLanguage
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.application.options.CodeStyle
+import com.intellij.lang.ASTNode
+import com.intellij.openapi.util.TextRange
+import com.intellij.psi.impl.source.codeStyle.PreFormatProcessor
+
+/**
+ * Pre-format processor that applies all MAML pre-format steps in one traversal of the formatted range.
+ *
+ * The steps run in this order for each node:
+ * 1. [MamlKeyFormatter] adds or removes key quotes
+ * 2. [MamlCommaRemover] puts items on separate lines and removes commas
+ * 3. [MamlTrailingCommaRemover] removes trailing commas (if any remain)
+ * 4. [MamlCommentLeadingSpaceInserter] fixes comment spacing
+ *
+ * Subtrees outside the range are skipped, and the returned range is the requested one adjusted by
+ * the length of the changes made inside it.
+ */
+class MamlPreFormatProcessor : PreFormatProcessor {
+
+    override fun process(element: ASTNode, range: TextRange): TextRange {
+        val file = element.psi.containingFile ?: return range
+
+        if (!file.language.isKindOf(MamlLanguage)) {
+            return range
+        }
+
+        val customSettings = CodeStyle.getCustomSettings(file, MamlCodeStyleSettings::class.java)
+        val steps = listOfNotNull(
+            MamlKeyFormatter.create(customSettings),
+            MamlCommaRemover.create(customSettings),
+            MamlTrailingCommaRemover.create(customSettings),
+            MamlCommentLeadingSpaceInserter.create(customSettings)
+        )
+        if (steps.isEmpty()) {
+            return range
+        }
+
+        val traversal = Traversal(steps, range)
+        traversal.visit(element)
+        val lengthDelta = traversal.lengthDelta + steps.sumOf { it.finish(element) }
+        return TextRange.create(range.startOffset, range.endOffset + lengthDelta)
+    }
+
+    private class Traversal(private val steps: List<MamlPreFormatStep>, private val range: TextRange) {
+        var lengthDelta = 0
+            private set
+
+        // The end of the range moves with the edits made before it
+        private val currentRange: TextRange
+            get() = TextRange.create(range.startOffset, range.endOffset + lengthDelta)
+
+        fun visit(node: ASTNode) {
+            val start = node.startOffset
+            val end = start + node.textLength
+            val rangeEnd = range.endOffset + lengthDelta
+            if (start >= rangeEnd || end <= range.startOffset) {
+                return
+            }
+
+            val firstChild = node.firstChildNode
+            if (firstChild == null) {
+                if (start >= range.startOffset && end <= rangeEnd) {
+                    visitLeaf(node)
+                }
+                return
+            }
+
+            if (node.elementType == MamlTypes.OBJECT || node.elementType == MamlTypes.ARRAY) {
+                for (step in steps) {
+                    lengthDelta += step.visitContainer(node, currentRange)
+                }
+            }
+
+            var child = node.firstChildNode
+            while (child != null) {
+                // Steps may replace the child, but never its following siblings
+                val next = child.treeNext
+                visit(child)
+                child = next
+            }
+        }
+
+        private fun visitLeaf(leaf: ASTNode) {
+            for (step in steps) {
+                val delta = step.visitLeaf(leaf) ?: continue
+                lengthDelta += delta
+                return
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.davidseptimus.maml.formatter
+
+import com.intellij.lang.ASTNode
+import com.intellij.openapi.util.TextRange
+
+/**
+ * One transformation run by [MamlPreFormatProcessor] during its single traversal of the formatted range.
+ *
+ * Steps may change the tree around the node they are given and report the resulting change in text
+ * length, which the processor uses to keep the range and the returned range in sync with the edits.
+ * Steps with many edits can instead record them during the traversal and apply them in [finish].
+ */
+internal interface MamlPreFormatStep {
+
+    /**
+     * Called for an object or array intersecting [range] before its children are visited.
+     * Only changes inside [range] are allowed. Returns the change in text length.
+     */
+    fun visitContainer(container: ASTNode, range: TextRange): Int = 0
+
+    /**
+     * Called for a leaf inside the range. Returns the change in text length, or null if the step
+     * left the leaf alone and later steps should see it.
+     */
+    fun visitLeaf(leaf: ASTNode): Int? = null
+
+    /**
+     * Called once after the traversal, for steps that collect their edits and apply them together.
+     * Returns the change in text length.
+     */
+    fun finish(root: ASTNode): Int = 0
+}
@@ -1,84 +1,59 @@
 package com.davidseptimus.maml.formatter
 
-import com.davidseptimus.maml.lang.MamlLanguage
 import com.davidseptimus.maml.lang.psi.*
 import com.davidseptimus.maml.lang.psi.MamlTypes
-import com.intellij.application.options.CodeStyle
 import com.intellij.lang.ASTNode
-import com.intellij.openapi.editor.Document
 import com.intellij.openapi.util.TextRange
 import com.intellij.psi.*
-import com.intellij.psi.impl.source.codeStyle.PreFormatProcessor
-import com.intellij.util.DocumentUtil
 
-class MamlTrailingCommaRemover : PreFormatProcessor {
-    override fun process(element: ASTNode, range: TextRange): TextRange {
-        val rootPsi = element.psi
-        if (rootPsi.language != MamlLanguage) {
-            return range
-        }
-
-        val settings = CodeStyle.getCustomSettings(rootPsi.containingFile, MamlCodeStyleSettings::class.java)
-        if (settings.KEEP_TRAILING_COMMA) {
-            return range
-        }
-
-        val psiDocumentManager = PsiDocumentManager.getInstance(rootPsi.project)
-        val document = psiDocumentManager.getDocument(rootPsi.containingFile) ?: return range
+/**
+ * Pre-format step that removes commas after the last item of an object or array.
+ */
+internal class MamlTrailingCommaRemover private constructor() : MamlPreFormatStep {
 
-        DocumentUtil.executeInBulk(document) {
-            psiDocumentManager.doPostponedOperationsAndUnblockDocument(document)
-            val visitor = Visitor(document)
-            rootPsi.accept(visitor)
-            psiDocumentManager.commitDocument(document)
-        }
-
-        return range
+    companion object {
+        fun create(customSettings: MamlCodeStyleSettings): MamlTrailingCommaRemover? =
+            if (customSettings.KEEP_TRAILING_COMMA) null else MamlTrailingCommaRemover()
     }
 
-    private class Visitor(private val document: Document) : MamlRecursiveElementVisitor() {
-        private var offsetDelta = 0
-
-        override fun visitArray(o: MamlArray) {
-            super.visitArray(o)
-            val lastChild = o.lastChild
-            if (lastChild?.node?.elementType != MamlTypes.RBRACKET) {
-                return
+    override fun visitContainer(container: ASTNode, range: TextRange): Int {
+        val lastElement = when (val psi = container.psi) {
+            is MamlArray -> {
+                if (psi.lastChild?.node?.elementType != MamlTypes.RBRACKET) {
+                    return 0
+                }
+                psi.items?.valueList?.lastOrNull() ?: psi.firstChild
             }
-            val items = o.items
-            val lastElement = items?.valueList?.lastOrNull() ?: o.firstChild
-            deleteTrailingCommas(lastElement)
-        }
 
-        override fun visitObject(o: MamlObject) {
-            super.visitObject(o)
-            val lastChild = o.lastChild
-            if (lastChild?.node?.elementType != MamlTypes.RBRACE) {
-                return
+            is MamlObject -> {
+                if (psi.lastChild?.node?.elementType != MamlTypes.RBRACE) {
+                    return 0
+                }
+                psi.members?.keyValueList?.lastOrNull() ?: psi.firstChild
             }
-            val members = o.members
-            val lastElement = members?.keyValueList?.lastOrNull() ?: o.firstChild
-            deleteTrailingCommas(lastElement)
-        }
 
-        private fun deleteTrailingCommas(lastElementOrOpeningBrace: PsiElement?) {
-            var element = lastElementOrOpeningBrace?.nextSibling
+            else -> return 0
+        }
+        return deleteTrailingCommas(lastElement, range)
+    }
 
-            while (element != null) {
-                if (element.node.elementType == MamlTypes.COMMA ||
-                    (element is PsiErrorElement && element.text == ",")) {
-                    deleteNode(element.node)
-                } else if (element !is PsiComment && element !is PsiWhiteSpace) {
-                    break
+    private fun deleteTrailingCommas(lastElementOrOpeningBrace: PsiElement?, range: TextRange): Int {
+        var lengthDelta = 0
+        var element = lastElementOrOpeningBrace?.nextSibling
+
+        while (element != null) {
+            val next = element.nextSibling
+            if (element.node.elementType == MamlTypes.COMMA ||
+                (element is PsiErrorElement && element.text == ",")) {
+                if (range.contains(element.textRange)) {
+                    lengthDelta -= element.textLength
+                    element.node.treeParent.removeChild(element.node)
                 }
-                element = element.nextSibling
+            } else if (element !is PsiComment && element !is PsiWhiteSpace) {
+                break
             }
+            element = next
         }
-
-        private fun deleteNode(node: ASTNode) {
-            val length = node.textLength
-            document.deleteString(node.startOffset + offsetDelta, node.startOffset + length + offsetDelta)
-            offsetDelta -= length
-        }
+        return lengthDelta
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.davidseptimus.maml.highlighting
+
+import com.davidseptimus.maml.lang.MamlLexer
+import com.davidseptimus.maml.lang.MamlStringEscapeLexer
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.lexer.FlexAdapter
+import com.intellij.lexer.LayeredLexer
+import com.intellij.lexer.RestartableLexer
+import com.intellij.lexer.TokenIterator
+
+import java.io.Reader
+
+/**
+ * Highlighting lexer that keeps multiline strings split into line-sized chunks and splits
+ * escape sequences out of single-line strings.
+ *
+ * Every lexer state is restartable, so after an edit inside a long multiline string the editor
+ * highlighter resumes lexing at the nearest chunk instead of at the opening quotes. Escapes are
+ * colored straight from the lexer, without annotations.
+ */
+class MamlHighlightingLexer : LayeredLexer(FlexAdapter(MamlLexer(null as Reader?))), RestartableLexer {
+
+    init {
+        registerLayer(MamlStringEscapeLexer(MamlTypes.STRING), MamlTypes.STRING)
+        registerLayer(MamlStringEscapeLexer(MamlTypes.KEY_STRING), MamlTypes.KEY_STRING)
+    }
+
+    override fun getStartState(): Int = MamlLexer.YYINITIAL
+
+    // Positions inside the escape layer report their own state and are never restartable
+    override fun isRestartableState(state: Int): Boolean =
+        state == MamlLexer.YYINITIAL || state == MamlLexer.IN_MULTILINE_STRING
+
+    override fun start(
+        buffer: CharSequence,
+        startOffset: Int,
+        endOffset: Int,
+        initialState: Int,
+        tokenIterator: TokenIterator?
+    ) {
+        start(buffer, startOffset, endOffset, initialState)
+    }
+}
@@ -2,6 +2,7 @@ package com.davidseptimus.maml.highlighting
 
 import com.davidseptimus.maml.lang.psi.MamlTypes
 import com.intellij.openapi.editor.colors.TextAttributesKey
+import com.intellij.psi.StringEscapesTokenTypes
 import com.intellij.psi.TokenType
 import com.intellij.psi.tree.IElementType
 
@@ -14,9 +15,14 @@ object MamlSyntaxHighlighterColors {
             MamlTypes.COLON -> arrayOf(MamlTokenAttributes.COLON)
 
             MamlTypes.STRING -> arrayOf(MamlTokenAttributes.STRING)
+            MamlTypes.KEY_STRING -> arrayOf(MamlTokenAttributes.KEY)
             MamlTypes.MULTILINE_STRING -> arrayOf(MamlTokenAttributes.MULTILINE_STRING)
             MamlTypes.NUMBER -> arrayOf(MamlTokenAttributes.NUMBER)
 
+            StringEscapesTokenTypes.VALID_STRING_ESCAPE_TOKEN -> arrayOf(MamlTokenAttributes.VALID_ESCAPE)
+            StringEscapesTokenTypes.INVALID_CHARACTER_ESCAPE_TOKEN,
+            StringEscapesTokenTypes.INVALID_UNICODE_ESCAPE_TOKEN -> arrayOf(MamlTokenAttributes.INVALID_ESCAPE)
+
             MamlTypes.TRUE, MamlTypes.FALSE, MamlTypes.NULL -> arrayOf(MamlTokenAttributes.KEYWORD)
 
             MamlTypes.IDENTIFIER -> arrayOf(MamlTokenAttributes.IDENTIFIER)
@@ -0,0 +1,226 @@
+package com.davidseptimus.maml.index
+
+import com.davidseptimus.maml.lang.MamlFileType
+import com.davidseptimus.maml.lang.MamlLexerAdapter
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectRootModificationTracker
+import com.intellij.openapi.util.ModificationTracker
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.TokenType
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.psi.tree.TokenSet
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import com.intellij.util.indexing.DataIndexer
+import com.intellij.util.indexing.FileBasedIndex
+import com.intellij.util.indexing.FileBasedIndexExtension
+import com.intellij.util.indexing.FileContent
+import com.intellij.util.indexing.ID
+import com.intellij.util.io.DataExternalizer
+import com.intellij.util.io.DataInputOutputUtil
+import com.intellij.util.io.EnumeratorStringDescriptor
+import com.intellij.util.io.KeyDescriptor
+import java.io.DataInput
+import java.io.DataOutput
+
+/**
+ * Index of the keys in all MAML files.
+ *
+ * Every key is indexed twice: by its name and by its full JSON pointer (e.g. `/servers/0/name`),
+ * both mapping to the offsets of the key in the file. The index is built from a single lexer pass,
+ * so indexing never creates PSI.
+ */
+class MamlKeyPathIndex : FileBasedIndexExtension<String, List<Int>>() {
+
+    override fun getName(): ID<String, List<Int>> = NAME
+
+    override fun getIndexer(): DataIndexer<String, List<Int>, FileContent> =
+        DataIndexer { inputData -> indexKeys(inputData.contentAsText) }
+
+    override fun getKeyDescriptor(): KeyDescriptor<String> = EnumeratorStringDescriptor.INSTANCE
+
+    override fun getValueExternalizer(): DataExternalizer<List<Int>> = OffsetsExternalizer
+
+    override fun getVersion(): Int = 1
+
+    override fun getInputFilter(): FileBasedIndex.InputFilter = FileBasedIndex.InputFilter { it.fileType is MamlFileType }
+
+    override fun dependsOnFileContent(): Boolean = true
+
+    companion object {
+        val NAME: ID<String, List<Int>> = ID.create("com.davidseptimus.maml.index.MamlKeyPathIndex")
+
+        // Names and pointers share the index, the prefixes keep a key named "/a" apart from the pointer "/a"
+        private const val KEY_NAME_PREFIX = "name:"
+        private const val KEY_PATH_PREFIX = "path:"
+
+        private val KEY_TOKENS = TokenSet.create(MamlTypes.KEY_STRING, MamlTypes.STRING, MamlTypes.IDENTIFIER)
+
+        /**
+         * All key names in MAML files of [project].
+         *
+         * Cached until the index or the project roots change, rather than read from the whole index on
+         * every call. Edits to files that are not MAML files leave the index, and so the cache, as is.
+         */
+        fun getAllKeyNames(project: Project): Set<String> =
+            CachedValuesManager.getManager(project).getCachedValue(project) {
+                CachedValueProvider.Result.create(
+                    collectKeyNames(GlobalSearchScope.projectScope(project)),
+                    ModificationTracker { FileBasedIndex.getInstance().getIndexModificationStamp(NAME, project) },
+                    ProjectRootModificationTracker.getInstance(project)
+                )
+            }
+
+        /**
+         * All key names in MAML files within [scope].
+         */
+        internal fun collectKeyNames(scope: GlobalSearchScope): Set<String> {
+            val index = FileBasedIndex.getInstance()
+            val names = HashSet<String>()
+            index.processAllKeys(NAME, { key ->
+                if (key.startsWith(KEY_NAME_PREFIX)) names.add(key.substring(KEY_NAME_PREFIX.length))
+                true
+            }, scope, null)
+            // The keys may include some that no file contains any more, keep those found in a file
+            names.retainAll { name ->
+                !index.processValues(NAME, KEY_NAME_PREFIX + name, null, { _, _ -> false }, scope)
+            }
+            return names
+        }
+
+        /**
+         * Passes the offsets of every key named [name] in [scope] to [processor], per file.
+         */
+        fun processKeyNameOffsets(
+            name: String,
+            scope: GlobalSearchScope,
+            processor: (VirtualFile, List<Int>) -> Boolean
+        ): Boolean = processOffsets(KEY_NAME_PREFIX + name, scope, processor)
+
+        /**
+         * Passes the offsets of every key at the JSON pointer [pointer] in [scope] to [processor], per file.
+         */
+        fun processKeyPathOffsets(
+            pointer: String,
+            scope: GlobalSearchScope,
+            processor: (VirtualFile, List<Int>) -> Boolean
+        ): Boolean = processOffsets(KEY_PATH_PREFIX + pointer, scope, processor)
+
+        private fun processOffsets(
+            key: String,
+            scope: GlobalSearchScope,
+            processor: (VirtualFile, List<Int>) -> Boolean
+        ): Boolean {
+            return FileBasedIndex.getInstance().processValues(NAME, key, null, { file, offsets ->
+                processor(file, offsets)
+            }, scope)
+        }
+
+        /**
+         * Maps every key name and key pointer in [text] to the offsets of the keys.
+         */
+        internal fun indexKeys(text: CharSequence): Map<String, List<Int>> {
+            val result = HashMap<String, MutableList<Int>>()
+            val containers = ArrayList<Container>()
+            // A key candidate becomes a key once its colon is seen
+            var pendingKey: String? = null
+            var pendingKeyOffset = 0
+            // The key whose value comes next
+            var valueKey: String? = null
+
+            val lexer = MamlLexerAdapter()
+            lexer.start(text)
+            while (true) {
+                val tokenType = lexer.tokenType ?: break
+                val container = containers.lastOrNull()
+
+                when (tokenType) {
+                    TokenType.WHITE_SPACE, MamlTypes.COMMENT -> {}
+
+                    MamlTypes.COLON -> {
+                        if (container != null && container.isObject && pendingKey != null) {
+                            val pointer = container.pointer + "/" + escapePointerSegment(pendingKey)
+                            result.getOrPut(KEY_NAME_PREFIX + pendingKey) { ArrayList() }.add(pendingKeyOffset)
+                            result.getOrPut(KEY_PATH_PREFIX + pointer) { ArrayList() }.add(pendingKeyOffset)
+                            valueKey = pendingKey
+                        }
+                        pendingKey = null
+                    }
+
+                    MamlTypes.COMMA -> {
+                        pendingKey = null
+                        valueKey = null
+                    }
+
+                    MamlTypes.RBRACE, MamlTypes.RBRACKET -> {
+                        pendingKey = null
+                        valueKey = null
+                        // A closing token of the wrong kind is a syntax error and does not close anything
+                        if (container != null && container.isObject == (tokenType == MamlTypes.RBRACE)) {
+                            containers.removeAt(containers.lastIndex)
+                        }
+                    }
+
+                    else -> {
+                        val pointer: String
+                        if (container != null && container.isObject && valueKey == null) {
+                            pendingKey = if (tokenType in KEY_TOKENS) keyName(lexer.tokenSequence) else null
+                            pendingKeyOffset = lexer.tokenStart
+                            // A container in key position is a syntax error, its keys stay under the object
+                            pointer = container.pointer
+                        } else {
+                            pointer = when {
+                                container == null -> ""
+                                container.isObject -> container.pointer + "/" + escapePointerSegment(valueKey!!)
+                                else -> container.pointer + "/" + container.itemCount++
+                            }
+                            valueKey = null
+                        }
+
+                        if (tokenType == MamlTypes.LBRACE || tokenType == MamlTypes.LBRACKET) {
+                            containers.add(Container(pointer, tokenType == MamlTypes.LBRACE))
+                        }
+                    }
+                }
+                lexer.advance()
+            }
+            return result
+        }
+
+        // Same as MamlKey.getName, quotes are removed and escapes are kept
+        private fun keyName(token: CharSequence): String = token.toString().removeSurrounding("\"")
+
+        private fun escapePointerSegment(segment: String): String =
+            segment.replace("~", "~0").replace("/", "~1")
+    }
+
+    private class Container(val pointer: String, val isObject: Boolean) {
+        var itemCount = 0
+    }
+
+    /**
+     * Offsets are written in ascending order as deltas, which keeps most of them to a single byte.
+     */
+    private object OffsetsExternalizer : DataExternalizer<List<Int>> {
+        override fun save(out: DataOutput, value: List<Int>) {
+            DataInputOutputUtil.writeINT(out, value.size)
+            var previous = 0
+            for (offset in value) {
+                DataInputOutputUtil.writeINT(out, offset - previous)
+                previous = offset
+            }
+        }
+
+        override fun read(input: DataInput): List<Int> {
+            val size = DataInputOutputUtil.readINT(input)
+            val offsets = ArrayList<Int>(size)
+            var previous = 0
+            repeat(size) {
+                previous += DataInputOutputUtil.readINT(input)
+                offsets.add(previous)
+            }
+            return offsets
+        }
+    }
+}
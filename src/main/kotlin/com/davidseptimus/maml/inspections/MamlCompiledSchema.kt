@@ -0,0 +1,532 @@
+package com.davidseptimus.maml.inspections
+
+import com.davidseptimus.maml.MamlBundle
+import com.davidseptimus.maml.lang.psi.MamlArray
+import com.davidseptimus.maml.lang.psi.MamlObject
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.davidseptimus.maml.lang.psi.MamlValue
+import com.intellij.codeInspection.LocalQuickFix
+import com.intellij.codeInspection.ProblemsHolder
+import com.intellij.openapi.util.Key
+import com.intellij.openapi.util.text.StringUtil
+import com.intellij.psi.PsiElement
+import com.jetbrains.jsonSchema.impl.JsonSchemaObject
+import com.jetbrains.jsonSchema.impl.JsonSchemaType
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap
+import java.util.Collections
+import java.util.IdentityHashMap
+import java.util.regex.Pattern
+import java.util.regex.PatternSyntaxException
+
+/**
+ * A JSON schema compiled into a tree of checks that runs directly over MAML PSI.
+ *
+ * The generic compliance checker interprets the schema through value adapters again on every run.
+ * Compiling it once turns property lookups into a hash map, required properties into a bitset per
+ * object, enums into sets of literal texts and patterns into compiled regexes, so a file is
+ * validated in one walk over its values, without adapters.
+ *
+ * Only part of JSON schema can be compiled: types, `enum`/`const`, `properties`, `required`,
+ * `additionalProperties`, `items`, local `$ref`s with no other keywords next to them and the
+ * string, number and array bounds. A schema using anything else anywhere in it is not compiled and
+ * is validated by the generic checker instead, so no keyword is ever silently skipped.
+ *
+ * Compiled schemas are cached on the schema file, see [forSchema].
+ */
+internal class MamlCompiledSchema private constructor(private val root: Check) {
+
+    companion object {
+        private val COMPILED_SCHEMA = Key.create<CachedSchema>("maml.compiled.schema")
+
+        private const val OBJECT = 1
+        private const val ARRAY = 1 shl 1
+        private const val STRING = 1 shl 2
+        private const val INTEGER = 1 shl 3
+        private const val NUMBER = 1 shl 4
+        private const val BOOLEAN = 1 shl 5
+        private const val NULL = 1 shl 6
+        private const val ANY = OBJECT or ARRAY or STRING or INTEGER or NUMBER or BOOLEAN or NULL
+
+        private const val TRIPLE_QUOTE = "\"\"\""
+
+        /**
+         * Returns the compiled form of [schema], or null if it uses keywords that cannot be
+         * compiled or is not read from a file.
+         *
+         * The result is kept on the schema file until the file's VFS modification count changes or
+         * the schema service reads the schema again, e.g. after an unsaved edit.
+         */
+        fun forSchema(schema: JsonSchemaObject): MamlCompiledSchema? {
+            val schemaFile = schema.rawFile ?: return null
+            val modificationCount = schemaFile.modificationCount
+            val cached = schemaFile.getUserData(COMPILED_SCHEMA)
+            if (cached != null && cached.modificationCount == modificationCount && cached.schema === schema) {
+                return cached.compiled
+            }
+
+            val compiled = compile(schema)
+            schemaFile.putUserData(COMPILED_SCHEMA, CachedSchema(modificationCount, schema, compiled))
+            return compiled
+        }
+
+        fun compile(schema: JsonSchemaObject): MamlCompiledSchema? =
+            Compiler(schema).compile(schema)?.let(::MamlCompiledSchema)
+
+        private fun typeName(kind: Int): String = when (kind) {
+            OBJECT -> "object"
+            ARRAY -> "array"
+            STRING -> "string"
+            INTEGER -> "integer"
+            NUMBER -> "number"
+            BOOLEAN -> "boolean"
+            else -> "null"
+        }
+    }
+
+    // Unsupported schemas are cached too, so they are not compiled again for every file
+    private class CachedSchema(
+        val modificationCount: Long,
+        val schema: JsonSchemaObject,
+        val compiled: MamlCompiledSchema?
+    )
+
+    /**
+     * Checks of one schema. Checks are created before their children are compiled, so recursive
+     * schemas become cycles in the tree.
+     */
+    private class Check {
+        var types = ANY
+        var typesPresentation = ""
+
+        // Enum values by literal text: string contents in enumStrings, numbers, booleans and null
+        // in enumLiterals. The lowercase sets are used for case-insensitive matching.
+        var enumStrings: Set<String>? = null
+        var enumLiterals: Set<String> = emptySet()
+        var enumStringsIgnoreCase: Set<String> = emptySet()
+        var enumPresentation = ""
+
+        var pattern: Pattern? = null
+        var minLength = -1
+        var maxLength = -1
+
+        var minimum: Number? = null
+        var minimumIsExclusive = false
+        var exclusiveMinimum: Number? = null
+        var maximum: Number? = null
+        var maximumIsExclusive = false
+        var exclusiveMaximum: Number? = null
+
+        // Properties and required names share one index, required is a bitset over it. Names in
+        // `properties` come first, required names that are not declared take the slots from
+        // declaredCount on and are otherwise treated as additional properties.
+        val propertyIndex = Object2IntOpenHashMap<String>().apply { defaultReturnValue(-1) }
+        var propertyNames: Array<String> = emptyArray()
+        var propertyChecks: Array<Check?> = emptyArray()
+        var declaredCount = 0
+        var required: LongArray? = null
+        var additionalPropertiesAllowed = true
+        var additionalProperties: Check? = null
+
+        var items: Check? = null
+        var minItems = -1
+        var maxItems = -1
+    }
+
+    private class Compiler(private val rootSchema: JsonSchemaObject) {
+        private val checks = IdentityHashMap<JsonSchemaObject, Check>()
+        private val resolvingRefs = Collections.newSetFromMap(IdentityHashMap<JsonSchemaObject, Boolean>())
+
+        fun compile(schema: JsonSchemaObject): Check? {
+            checks[schema]?.let { return it }
+
+            val ref = schema.ref
+            if (ref != null) {
+                // The schema resolver merges keywords next to a $ref into the referenced schema,
+                // which is not done here
+                if (hasValidationKeywords(schema) || !resolvingRefs.add(schema)) return null
+                val check = resolveLocalRef(ref)?.let(::compile) ?: return null
+                checks[schema] = check
+                return check
+            }
+            if (!isCompilable(schema)) return null
+
+            val check = Check()
+            checks[schema] = check
+            if (!compileType(schema, check) ||
+                !compileEnum(schema, check) ||
+                !compileString(schema, check) ||
+                !compileObject(schema, check) ||
+                !compileArray(schema, check)
+            ) {
+                return null
+            }
+            compileNumber(schema, check)
+            return check
+        }
+
+        private fun resolveLocalRef(ref: String): JsonSchemaObject? = when {
+            ref == "#" -> rootSchema
+            ref.startsWith("#/") -> rootSchema.findRelativeDefinition(ref.substring(1))
+            else -> null
+        }
+
+        private fun hasValidationKeywords(schema: JsonSchemaObject): Boolean =
+            !isCompilable(schema) ||
+                    schema.type != null ||
+                    schema.typeVariants != null ||
+                    schema.enum != null ||
+                    schema.propertyNames.hasNext() ||
+                    schema.required != null ||
+                    !schema.additionalPropertiesAllowed ||
+                    schema.additionalPropertiesSchema != null ||
+                    schema.itemsSchema != null ||
+                    schema.pattern != null ||
+                    schema.minLength != null ||
+                    schema.maxLength != null ||
+                    schema.minimum != null ||
+                    schema.exclusiveMinimumNumber != null ||
+                    schema.maximum != null ||
+                    schema.exclusiveMaximumNumber != null ||
+                    schema.minItems != null ||
+                    schema.maxItems != null
+
+        private fun isCompilable(schema: JsonSchemaObject): Boolean =
+            schema.constantSchema != false &&
+                    schema.allOf == null &&
+                    schema.anyOf == null &&
+                    schema.oneOf == null &&
+                    schema.not == null &&
+                    schema.ifThenElse == null &&
+                    !schema.hasPatternProperties() &&
+                    schema.propertyNamesSchema == null &&
+                    schema.propertyDependencies.isNullOrEmpty() &&
+                    !schema.schemaDependencyNames.hasNext() &&
+                    schema.itemsSchemaList == null &&
+                    schema.additionalItemsSchema == null &&
+                    schema.containsSchema == null &&
+                    !schema.isUniqueItems &&
+                    schema.multipleOf == null &&
+                    schema.format == null &&
+                    schema.minProperties == null &&
+                    schema.maxProperties == null &&
+                    schema.deprecationMessage == null
+
+        private fun compileType(schema: JsonSchemaObject, check: Check): Boolean {
+            val types = schema.typeVariants ?: schema.type?.let(::setOf) ?: return true
+            var mask = 0
+            for (type in types) {
+                mask = mask or when (type) {
+                    JsonSchemaType._object -> OBJECT
+                    JsonSchemaType._array -> ARRAY
+                    JsonSchemaType._string -> STRING
+                    JsonSchemaType._integer -> INTEGER
+                    // Integers are numbers too
+                    JsonSchemaType._number -> NUMBER or INTEGER
+                    JsonSchemaType._string_number -> STRING or NUMBER or INTEGER
+                    JsonSchemaType._boolean -> BOOLEAN
+                    JsonSchemaType._null -> NULL
+                    JsonSchemaType._any -> ANY
+                    else -> return false
+                }
+            }
+            check.types = mask
+            check.typesPresentation = types.joinToString(", ") { it.name.removePrefix("_") }
+            return true
+        }
+
+        /**
+         * Sorts the enum values into strings and other literals. Object and array values cannot be
+         * compiled.
+         */
+        private fun compileEnum(schema: JsonSchemaObject, check: Check): Boolean {
+            val values = schema.enum ?: return true
+            val strings = LinkedHashSet<String>()
+            val literals = LinkedHashSet<String>()
+            for (value in values) {
+                when {
+                    value == null -> literals += "null"
+                    value is String && StringUtil.isQuotedString(value) -> strings += StringUtil.unquoteString(value)
+                    value is String && !isLiteral(value) -> strings += value
+                    value is String || value is Number || value is Boolean -> literals += value.toString()
+                    else -> return false
+                }
+            }
+            check.enumStrings = strings
+            check.enumLiterals = literals
+            check.enumStringsIgnoreCase = strings.mapTo(HashSet()) { it.lowercase() }
+            check.enumPresentation = (strings.map { "\"$it\"" } + literals).joinToString(", ")
+            return true
+        }
+
+        private fun isLiteral(text: String): Boolean =
+            text == "true" || text == "false" || text == "null" || text.toDoubleOrNull() != null
+
+        private fun compileString(schema: JsonSchemaObject, check: Check): Boolean {
+            check.pattern = schema.pattern?.let {
+                try {
+                    Pattern.compile(it)
+                } catch (_: PatternSyntaxException) {
+                    return false
+                }
+            }
+            check.minLength = schema.minLength ?: -1
+            check.maxLength = schema.maxLength ?: -1
+            return true
+        }
+
+        private fun compileNumber(schema: JsonSchemaObject, check: Check) {
+            check.minimum = schema.minimum
+            check.minimumIsExclusive = schema.isExclusiveMinimum
+            check.exclusiveMinimum = schema.exclusiveMinimumNumber
+            check.maximum = schema.maximum
+            check.maximumIsExclusive = schema.isExclusiveMaximum
+            check.exclusiveMaximum = schema.exclusiveMaximumNumber
+        }
+
+        private fun compileObject(schema: JsonSchemaObject, check: Check): Boolean {
+            val names = ArrayList<String>()
+            schema.propertyNames.forEach { names += it }
+            check.declaredCount = names.size
+            schema.required?.forEach { if (it !in names) names += it }
+
+            val propertyChecks = arrayOfNulls<Check>(names.size)
+            names.forEachIndexed { index, name ->
+                check.propertyIndex.put(name, index)
+                val propertySchema = schema.getPropertyByName(name) ?: return@forEachIndexed
+                propertyChecks[index] = compile(propertySchema) ?: return false
+            }
+            check.propertyNames = names.toTypedArray()
+            check.propertyChecks = propertyChecks
+
+            schema.required?.takeIf { it.isNotEmpty() }?.let { required ->
+                val bits = LongArray((names.size + 63) / 64)
+                for (name in required) {
+                    val index = check.propertyIndex.getInt(name)
+                    bits[index shr 6] = bits[index shr 6] or (1L shl index)
+                }
+                check.required = bits
+            }
+
+            check.additionalPropertiesAllowed = schema.additionalPropertiesAllowed
+            check.additionalProperties = schema.additionalPropertiesSchema?.let { compile(it) ?: return false }
+            return true
+        }
+
+        private fun compileArray(schema: JsonSchemaObject, check: Check): Boolean {
+            check.items = schema.itemsSchema?.let { compile(it) ?: return false }
+            check.minItems = schema.minItems ?: -1
+            check.maxItems = schema.maxItems ?: -1
+            return true
+        }
+    }
+
+    /**
+     * Validates [root], a MAML value, object or array, and reports the problems to [holder].
+     */
+    fun validate(root: PsiElement, holder: ProblemsHolder, caseInsensitiveEnum: Boolean) {
+        Validation(holder, caseInsensitiveEnum).check(root, this.root)
+    }
+
+    private class Validation(private val holder: ProblemsHolder, private val caseInsensitiveEnum: Boolean) {
+
+        fun check(element: PsiElement, check: Check) {
+            when (element) {
+                is MamlObject -> checkObject(element, check)
+                is MamlArray -> checkArray(element, check)
+                is MamlValue -> {
+                    val obj = element.`object`
+                    val array = element.array
+                    when {
+                        obj != null -> checkObject(obj, check)
+                        array != null -> checkArray(array, check)
+                        else -> checkScalar(element, check)
+                    }
+                }
+            }
+        }
+
+        private fun checkObject(obj: MamlObject, check: Check) {
+            if (!checkType(obj, OBJECT, check) || !checkNotInEnum(obj, check)) return
+
+            val missing = check.required?.copyOf()
+            for (keyValue in obj.members?.keyValueList.orEmpty()) {
+                val index = check.propertyIndex.getInt(keyValue.key.name)
+                val value = keyValue.value
+                if (index >= 0 && missing != null) {
+                    missing[index shr 6] = missing[index shr 6] and (1L shl index).inv()
+                }
+                if (index >= 0 && index < check.declaredCount) {
+                    val propertyCheck = check.propertyChecks[index]
+                    if (propertyCheck != null && value != null) check(value, propertyCheck)
+                } else if (!check.additionalPropertiesAllowed) {
+                    holder.registerProblem(
+                        keyValue.key,
+                        MamlBundle.message("inspection.schema.compliance.property.not.allowed"),
+                        MamlRemoveDisallowedPropertyQuickFix(keyValue.key.name)
+                    )
+                } else {
+                    val additional = check.additionalProperties
+                    if (additional != null && value != null) check(value, additional)
+                }
+            }
+
+            if (missing != null && missing.any { it != 0L }) {
+                reportMissing(obj, check, missing)
+            }
+        }
+
+        private fun reportMissing(obj: MamlObject, check: Check, missing: LongArray) {
+            val names = check.propertyNames.filterIndexed { index, _ ->
+                missing[index shr 6] and (1L shl index) != 0L
+            }
+            val message = if (names.size == 1) {
+                MamlBundle.message("inspection.schema.compliance.missing.property", names.single())
+            } else {
+                MamlBundle.message("inspection.schema.compliance.missing.properties", names.joinToString(", ") { "'$it'" })
+            }
+            // The validator knows the names, so each gets its own fix instead of being parsed back from the message
+            val fixes = names.map(::MamlMissingRequiredPropertyQuickFix).toTypedArray<LocalQuickFix>()
+            holder.registerProblem(obj, message, *fixes)
+        }
+
+        private fun checkArray(array: MamlArray, check: Check) {
+            if (!checkType(array, ARRAY, check) || !checkNotInEnum(array, check)) return
+
+            val values = array.items?.valueList.orEmpty()
+            if (check.minItems >= 0 && values.size < check.minItems) {
+                holder.registerProblem(array, MamlBundle.message("inspection.schema.compliance.array.shorter", check.minItems.toString()))
+            }
+            if (check.maxItems >= 0 && values.size > check.maxItems) {
+                holder.registerProblem(array, MamlBundle.message("inspection.schema.compliance.array.longer", check.maxItems.toString()))
+            }
+            val items = check.items ?: return
+            for (value in values) {
+                check(value, items)
+            }
+        }
+
+        private fun checkScalar(value: MamlValue, check: Check) {
+            // Invalid values have no type and are reported by the parser
+            val token = value.firstChild?.node ?: return
+            val chars = token.chars
+            val kind = when (token.elementType) {
+                MamlTypes.STRING, MamlTypes.MULTILINE_STRING -> STRING
+                MamlTypes.NUMBER -> if (isIntegerLiteral(chars)) INTEGER else NUMBER
+                MamlTypes.TRUE, MamlTypes.FALSE -> BOOLEAN
+                MamlTypes.NULL -> NULL
+                else -> return
+            }
+            if (!checkType(value, kind, check)) return
+
+            if (kind == STRING) {
+                checkString(value, stringContent(chars, token.elementType == MamlTypes.MULTILINE_STRING), check)
+            } else {
+                checkLiteral(value, chars, kind, check)
+            }
+        }
+
+        private fun checkString(value: MamlValue, content: CharSequence, check: Check) {
+            check.enumStrings?.let { strings ->
+                val text = content.toString()
+                val matches = if (caseInsensitiveEnum) text.lowercase() in check.enumStringsIgnoreCase else text in strings
+                if (!matches) reportEnum(value, check)
+            }
+            check.pattern?.let { pattern ->
+                if (!pattern.matcher(content).find()) {
+                    holder.registerProblem(value, MamlBundle.message("inspection.schema.compliance.pattern", pattern.pattern()))
+                }
+            }
+            if (check.minLength >= 0 && content.length < check.minLength) {
+                holder.registerProblem(value, MamlBundle.message("inspection.schema.compliance.string.shorter", check.minLength.toString()))
+            }
+            if (check.maxLength >= 0 && content.length > check.maxLength) {
+                holder.registerProblem(value, MamlBundle.message("inspection.schema.compliance.string.longer", check.maxLength.toString()))
+            }
+        }
+
+        private fun checkLiteral(value: MamlValue, chars: CharSequence, kind: Int, check: Check) {
+            if (check.enumStrings != null && chars.toString() !in check.enumLiterals) {
+                reportEnum(value, check)
+            }
+            if (kind == INTEGER || kind == NUMBER) {
+                val number = chars.toString().toDoubleOrNull() ?: return
+                checkNumber(value, number, check)
+            }
+        }
+
+        private fun checkNumber(value: MamlValue, number: Double, check: Check) {
+            check.minimum?.let { minimum ->
+                if (check.minimumIsExclusive && number <= minimum.toDouble()) {
+                    reportBound(value, "inspection.schema.compliance.less.than.exclusive.minimum", minimum)
+                } else if (number < minimum.toDouble()) {
+                    reportBound(value, "inspection.schema.compliance.less.than.minimum", minimum)
+                }
+            }
+            check.exclusiveMinimum?.let { minimum ->
+                if (number <= minimum.toDouble()) {
+                    reportBound(value, "inspection.schema.compliance.less.than.exclusive.minimum", minimum)
+                }
+            }
+            check.maximum?.let { maximum ->
+                if (check.maximumIsExclusive && number >= maximum.toDouble()) {
+                    reportBound(value, "inspection.schema.compliance.greater.than.exclusive.maximum", maximum)
+                } else if (number > maximum.toDouble()) {
+                    reportBound(value, "inspection.schema.compliance.greater.than.maximum", maximum)
+                }
+            }
+            check.exclusiveMaximum?.let { maximum ->
+                if (number >= maximum.toDouble()) {
+                    reportBound(value, "inspection.schema.compliance.greater.than.exclusive.maximum", maximum)
+                }
+            }
+        }
+
+        private fun reportBound(value: MamlValue, key: String, bound: Number) {
+            holder.registerProblem(value, MamlBundle.message(key, bound.toString()))
+        }
+
+        private fun checkType(element: PsiElement, kind: Int, check: Check): Boolean {
+            if (check.types and kind != 0) return true
+            holder.registerProblem(
+                element,
+                MamlBundle.message("inspection.schema.compliance.incompatible.types", check.typesPresentation, typeName(kind))
+            )
+            return false
+        }
+
+        /**
+         * Compiled enums only hold scalars, so objects and arrays never match one.
+         */
+        private fun checkNotInEnum(container: PsiElement, check: Check): Boolean {
+            if (check.enumStrings == null) return true
+            reportEnum(container, check)
+            return false
+        }
+
+        private fun reportEnum(element: PsiElement, check: Check) {
+            holder.registerProblem(element, MamlBundle.message("inspection.schema.compliance.enum", check.enumPresentation))
+        }
+
+        private fun isIntegerLiteral(chars: CharSequence): Boolean {
+            val start = if (chars.isNotEmpty() && (chars[0] == '-' || chars[0] == '+')) 1 else 0
+            if (start == chars.length) return false
+            for (i in start until chars.length) {
+                if (chars[i] !in '0'..'9') return false
+            }
+            return true
+        }
+
+        /**
+         * The text between the quotes of a string, without the line break that follows the opening
+         * quotes of a multiline string.
+         */
+        private fun stringContent(chars: CharSequence, multiline: Boolean): CharSequence {
+            val quote = if (multiline) TRIPLE_QUOTE.length else 1
+            if (chars.length < 2 * quote) return chars
+            var start = quote
+            val end = chars.length - quote
+            if (multiline && start < end && chars[start] == '\n') start++
+            return chars.subSequence(start, end)
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.davidseptimus.maml.inspections
+
+import com.davidseptimus.maml.lang.psi.MamlArray
+import com.davidseptimus.maml.lang.psi.MamlObject
+import com.davidseptimus.maml.lang.psi.MamlValue
+import com.intellij.codeInspection.LocalInspectionToolSession
+import com.intellij.codeInspection.ProblemDescriptor
+import com.intellij.codeInspection.ProblemsHolder
+import com.intellij.json.pointer.JsonPointerPosition
+import com.intellij.openapi.util.Key
+import com.intellij.psi.PsiElement
+import com.intellij.psi.impl.source.tree.CompositeElement
+import com.intellij.psi.util.PsiTreeUtil
+import com.jetbrains.jsonSchema.extension.JsonLikePsiWalker
+import com.jetbrains.jsonSchema.extension.adapters.JsonArrayValueAdapter
+import com.jetbrains.jsonSchema.extension.adapters.JsonObjectValueAdapter
+import com.jetbrains.jsonSchema.extension.adapters.JsonPropertyAdapter
+import com.jetbrains.jsonSchema.extension.adapters.JsonValueAdapter
+import com.jetbrains.jsonSchema.impl.JsonComplianceCheckerOptions
+import com.jetbrains.jsonSchema.impl.JsonSchemaComplianceChecker
+import com.jetbrains.jsonSchema.impl.JsonSchemaObject
+import com.jetbrains.jsonSchema.impl.JsonSchemaResolver
+
+/**
+ * Validates a MAML file against a JSON schema one object or array at a time, caching the problems
+ * of each container until its subtree changes.
+ *
+ * Nested containers that resolve to a single plain schema (no composition, `uniqueItems` or
+ * `contains`) are validated on their own and hidden from their parent's check. Each container
+ * keeps its problems together with its subtree modification count and schema, so after an edit
+ * only the containers enclosing the change are revalidated and all others are replayed from cache.
+ * Containers whose validity depends on their whole subtree are validated in one go, as before.
+ */
+internal class MamlIncrementalSchemaValidator(
+    private val rootSchema: JsonSchemaObject,
+    private val walker: JsonLikePsiWalker,
+    private val holder: ProblemsHolder,
+    private val session: LocalInspectionToolSession,
+    private val options: JsonComplianceCheckerOptions,
+    private val caseInsensitiveEnum: Boolean
+) {
+
+    companion object {
+        private val VALIDATION_RESULT = Key.create<ValidationResult>("maml.schema.validation.result")
+    }
+
+    private class ValidationUnit(val container: PsiElement, val schema: JsonSchemaObject)
+
+    private class ValidationResult(
+        val modificationCount: Int,
+        val schema: JsonSchemaObject,
+        val caseInsensitiveEnum: Boolean,
+        val nestedUnits: List<ValidationUnit>,
+        val problems: List<ProblemDescriptor>
+    )
+
+    fun validate(root: PsiElement) {
+        // Cached descriptors are only reused by the daemon, batch runs see each file once
+        val container = containerOf(root)
+        val schema = container?.let { resolvePlainSchema(rootSchema, JsonPointerPosition(), it) }
+        if (!holder.isOnTheFly || container == null || schema == null) {
+            JsonSchemaComplianceChecker(rootSchema, wrap(holder), walker, session, options).annotate(root)
+            return
+        }
+        validateUnit(ValidationUnit(container, schema))
+    }
+
+    private fun validateUnit(unit: ValidationUnit) {
+        val container = unit.container
+        val modificationCount = (container.node as? CompositeElement)?.modificationCount
+
+        val cached = container.getUserData(VALIDATION_RESULT)
+        if (cached != null &&
+            cached.modificationCount == modificationCount &&
+            cached.schema === unit.schema &&
+            cached.caseInsensitiveEnum == caseInsensitiveEnum
+        ) {
+            cached.nestedUnits.forEach(::validateUnit)
+            cached.problems.forEach(holder::registerProblem)
+            return
+        }
+
+        // Nested units go first so that their own problems, not the placeholders seen by the
+        // shallow check below, are the ones registered on their elements
+        val nestedUnits = findNestedUnits(unit)
+        nestedUnits.forEach(::validateUnit)
+
+        val nestedContainers = nestedUnits.mapTo(HashSet()) { it.container }
+        val recorder = RecordingProblemsHolder(holder) { element ->
+            nestedContainers.none { PsiTreeUtil.isAncestor(it, element, false) }
+        }
+        val unitWalker = UnitPsiWalker(walker, container, nestedContainers)
+        JsonSchemaComplianceChecker(unit.schema, wrap(recorder), unitWalker, session, options).annotate(container)
+
+        val problems = recorder.results
+        if (modificationCount != null) {
+            container.putUserData(
+                VALIDATION_RESULT,
+                ValidationResult(modificationCount, unit.schema, caseInsensitiveEnum, nestedUnits, problems)
+            )
+        }
+        problems.forEach(holder::registerProblem)
+    }
+
+    private fun findNestedUnits(unit: ValidationUnit): List<ValidationUnit> {
+        val units = mutableListOf<ValidationUnit>()
+        when (val container = unit.container) {
+            is MamlObject -> container.members?.keyValueList?.forEach { keyValue ->
+                val nested = keyValue.value?.let(::containerOf) ?: return@forEach
+                val position = JsonPointerPosition().apply {
+                    addFollowingStep(keyValue.key.text.removeSurrounding("\""))
+                }
+                resolvePlainSchema(unit.schema, position, nested)?.let { units += ValidationUnit(nested, it) }
+            }
+
+            is MamlArray -> container.items?.valueList?.forEachIndexed { index, value ->
+                val nested = containerOf(value) ?: return@forEachIndexed
+                val position = JsonPointerPosition().apply { addFollowingStep(index) }
+                resolvePlainSchema(unit.schema, position, nested)?.let { units += ValidationUnit(nested, it) }
+            }
+        }
+        return units
+    }
+
+    /**
+     * Resolves the schema of [element] at [position] relative to [schema], or returns null if it
+     * cannot be validated independently of its subtree.
+     */
+    private fun resolvePlainSchema(
+        schema: JsonSchemaObject,
+        position: JsonPointerPosition,
+        element: PsiElement
+    ): JsonSchemaObject? {
+        val adapter = walker.createValueAdapter(element) ?: return null
+        val result = JsonSchemaResolver(holder.project, schema, position, adapter).detailedResolve()
+        if (result.myExcludingSchemas.isNotEmpty()) return null
+        val resolved = result.mySchemas.singleOrNull() ?: return null
+        val isPlain = resolved.oneOf == null &&
+                resolved.anyOf == null &&
+                resolved.allOf == null &&
+                resolved.not == null &&
+                resolved.ifThenElse == null &&
+                resolved.containsSchema == null &&
+                !resolved.isUniqueItems
+        return if (isPlain) resolved else null
+    }
+
+    private fun wrap(target: ProblemsHolder) =
+        MamlJsonSchemaComplianceInspection.MamlProblemsHolderWrapper(target)
+
+    /**
+     * Keeps the problems of the validated unit and drops those reported inside nested units.
+     */
+    private class RecordingProblemsHolder(
+        holder: ProblemsHolder,
+        private val accepts: (PsiElement) -> Boolean
+    ) : ProblemsHolder(holder.manager, holder.file, holder.isOnTheFly) {
+        override fun registerProblem(problemDescriptor: ProblemDescriptor) {
+            val element = problemDescriptor.psiElement
+            if (element == null || accepts(element)) {
+                super.registerProblem(problemDescriptor)
+            }
+        }
+    }
+
+    /**
+     * Presents [unit] as the top-level value of the file and its nested units as empty containers,
+     * so the compliance checker validates only the unit's own level.
+     */
+    private class UnitPsiWalker(
+        private val delegate: JsonLikePsiWalker,
+        private val unit: PsiElement,
+        private val nestedContainers: Set<PsiElement>
+    ) : JsonLikePsiWalker by delegate {
+
+        override fun isTopJsonElement(element: PsiElement): Boolean =
+            !PsiTreeUtil.isAncestor(unit, element, false)
+
+        override fun getParentPropertyAdapter(element: PsiElement): JsonPropertyAdapter? =
+            if (element == unit) null else delegate.getParentPropertyAdapter(element)
+
+        override fun createValueAdapter(element: PsiElement): JsonValueAdapter? {
+            val adapter = delegate.createValueAdapter(element) ?: return null
+            return if (element == unit) shallow(adapter) else adapter
+        }
+
+        private fun shallow(adapter: JsonValueAdapter): JsonValueAdapter {
+            val obj = adapter.asObject
+            val array = adapter.asArray
+            return when {
+                obj != null -> object : JsonObjectValueAdapter by obj {
+                    override fun getAsObject(): JsonObjectValueAdapter = this
+                    override fun getPropertyList(): List<JsonPropertyAdapter> = obj.propertyList.map { property ->
+                        object : JsonPropertyAdapter by property {
+                            override fun getValues(): Collection<JsonValueAdapter> = property.values.map(::placeholder)
+                        }
+                    }
+                }
+
+                array != null -> object : JsonArrayValueAdapter by array {
+                    override fun getAsArray(): JsonArrayValueAdapter = this
+                    override fun getElements(): List<JsonValueAdapter> = array.elements.map(::placeholder)
+                }
+
+                else -> adapter
+            }
+        }
+
+        private fun placeholder(adapter: JsonValueAdapter): JsonValueAdapter {
+            if (containerOf(adapter.delegate) !in nestedContainers) return adapter
+            val obj = adapter.asObject
+            val array = adapter.asArray
+            return when {
+                obj != null -> object : JsonObjectValueAdapter by obj {
+                    override fun getAsObject(): JsonObjectValueAdapter = this
+                    override fun getPropertyList(): List<JsonPropertyAdapter> = emptyList()
+                }
+
+                array != null -> object : JsonArrayValueAdapter by array {
+                    override fun getAsArray(): JsonArrayValueAdapter = this
+                    override fun getElements(): List<JsonValueAdapter> = emptyList()
+                }
+
+                else -> adapter
+            }
+        }
+    }
+}
+
+private fun containerOf(element: PsiElement): PsiElement? = when (element) {
+    is MamlObject, is MamlArray -> element
+    is MamlValue -> element.`object` ?: element.array
+    else -> null
+}
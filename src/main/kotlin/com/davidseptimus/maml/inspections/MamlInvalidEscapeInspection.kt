@@ -0,0 +1,69 @@
+package com.davidseptimus.maml.inspections
+
+import com.davidseptimus.maml.MamlBundle
+import com.davidseptimus.maml.lang.MamlStringEscapeLexer
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.codeInspection.LocalInspectionTool
+import com.intellij.codeInspection.LocalQuickFix
+import com.intellij.codeInspection.ProblemDescriptor
+import com.intellij.codeInspection.ProblemsHolder
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.TextRange
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.psi.PsiElement
+import com.intellij.psi.PsiElementVisitor
+import com.intellij.psi.StringEscapesTokenTypes
+
+/**
+ * Inspection that reports invalid escape sequences in single-line MAML strings.
+ *
+ * Escapes are split out by [MamlStringEscapeLexer], the same lexer that colors them in the editor,
+ * and only strings that contain a backslash are lexed at all.
+ */
+class MamlInvalidEscapeInspection : LocalInspectionTool() {
+
+    override fun buildVisitor(holder: ProblemsHolder, isOnTheFly: Boolean): PsiElementVisitor {
+        return object : PsiElementVisitor() {
+            override fun visitElement(element: PsiElement) {
+                val tokenType = element.node?.elementType ?: return
+                if (tokenType != MamlTypes.STRING && tokenType != MamlTypes.KEY_STRING) return
+
+                val text = element.text
+                // Quick exit for the common case of a string without escapes
+                if (text.indexOf('\\') < 0) return
+
+                val lexer = MamlStringEscapeLexer(tokenType)
+                lexer.start(text)
+                while (lexer.tokenType != null) {
+                    if (lexer.tokenType == StringEscapesTokenTypes.INVALID_CHARACTER_ESCAPE_TOKEN) {
+                        holder.registerProblem(
+                            element,
+                            MamlBundle.message("inspection.invalid.escape.message", lexer.tokenText),
+                            TextRange(lexer.tokenStart, lexer.tokenEnd),
+                            EscapeBackslashQuickFix()
+                        )
+                    }
+                    lexer.advance()
+                }
+            }
+        }
+    }
+
+    /**
+     * Quick fix that escapes the backslash so it is kept as a literal character.
+     */
+    private class EscapeBackslashQuickFix : LocalQuickFix {
+        override fun getFamilyName(): String =
+            MamlBundle.message("inspection.invalid.escape.quickfix")
+
+        override fun applyFix(project: Project, descriptor: ProblemDescriptor) {
+            val element = descriptor.psiElement ?: return
+            val file = element.containingFile ?: return
+            val document = PsiDocumentManager.getInstance(project).getDocument(file) ?: return
+
+            val offset = element.textRange.startOffset + descriptor.textRangeInElement.startOffset
+            document.insertString(offset, "\\")
+            PsiDocumentManager.getInstance(project).commitDocument(document)
+        }
+    }
+}
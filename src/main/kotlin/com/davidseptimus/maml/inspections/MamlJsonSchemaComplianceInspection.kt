@@ -1,6 +1,7 @@
 package com.davidseptimus.maml.inspections
 
 import com.davidseptimus.maml.MamlBundle
+import com.davidseptimus.maml.lang.psi.MamlKeyValue
 import com.davidseptimus.maml.lang.psi.MamlObject
 import com.intellij.codeInspection.*
 import com.intellij.codeInspection.options.OptPane
@@ -30,6 +31,21 @@ class MamlJsonSchemaComplianceInspection : LocalInspectionTool() {
     @JvmField
     var caseInsensitiveEnum = false
 
+    // Set when the schema was already resolved for a group of files, see MamlProjectSchemaComplianceInspection
+    private var resolvedSchema: JsonSchemaObject? = null
+
+    companion object {
+        /**
+         * Creates an instance that validates every file it is run on against [schema] instead of
+         * resolving the schema for each file.
+         */
+        internal fun forSchema(schema: JsonSchemaObject, caseInsensitiveEnum: Boolean) =
+            MamlJsonSchemaComplianceInspection().also {
+                it.resolvedSchema = schema
+                it.caseInsensitiveEnum = caseInsensitiveEnum
+            }
+    }
+
     override fun buildVisitor(
         holder: ProblemsHolder,
         isOnTheFly: Boolean,
@@ -45,7 +61,7 @@ class MamlJsonSchemaComplianceInspection : LocalInspectionTool() {
         }
 
         // Get the schema for this file
-        val schema = service.getSchemaObject(file) ?: return PsiElementVisitor.EMPTY_VISITOR
+        val schema = resolvedSchema ?: service.getSchemaObject(file) ?: return PsiElementVisitor.EMPTY_VISITOR
 
         // Get the walker to find the root value element
         val walker = JsonLikePsiWalker.getWalker(file, schema) ?: return PsiElementVisitor.EMPTY_VISITOR
@@ -58,7 +74,7 @@ class MamlJsonSchemaComplianceInspection : LocalInspectionTool() {
         return object : PsiElementVisitor() {
             override fun visitElement(element: PsiElement) {
                 // Only validate the root element
-                // The checker will traverse the entire tree from there
+                // The validator will traverse the entire tree from there
                 if (element == root) {
                     annotate(element, schema, holder, session)
                 }
@@ -73,38 +89,52 @@ class MamlJsonSchemaComplianceInspection : LocalInspectionTool() {
         holder: ProblemsHolder,
         session: LocalInspectionToolSession
     ) {
+        // Batch runs check schemas that can be compiled in a single walk over the MAML PSI, which
+        // registers its quick fixes itself. While editing, the incremental validator below reuses
+        // the problems of unchanged containers instead of walking the whole file again.
+        if (!holder.isOnTheFly) {
+            val compiled = MamlCompiledSchema.forSchema(rootSchema)
+            if (compiled != null) {
+                compiled.validate(element, holder, caseInsensitiveEnum)
+                return
+            }
+        }
+
         // Get the PSI walker for MAML files
         val walker = JsonLikePsiWalker.getWalker(element, rootSchema) ?: return
 
         // Create compliance checker with options
         val options = JsonComplianceCheckerOptions(caseInsensitiveEnum)
 
-        // Wrap the holder to add quick fixes for missing required properties
-        val wrappedHolder = MamlProblemsHolderWrapper(holder, rootSchema)
-
-        // Run the compliance checker
-        // This will add problems to the wrapped holder for any schema violations
-        JsonSchemaComplianceChecker(rootSchema, wrappedHolder, walker, session, options).annotate(element)
+        // Validate container by container, reusing the problems of containers that did not change
+        MamlIncrementalSchemaValidator(rootSchema, walker, holder, session, options, caseInsensitiveEnum)
+            .validate(element)
     }
 
     /**
      * Wraps ProblemsHolder to intercept problem registrations and add quick fixes
-     * for missing required properties.
+     * for missing required and disallowed properties.
+     *
+     * Problems are classified by their message only; the quick fixes look up anything else they
+     * need when they are applied, so reporting a problem stays cheap even for thousands of them.
      */
-    private class MamlProblemsHolderWrapper(
-        private val delegate: ProblemsHolder,
-        private val rootSchema: JsonSchemaObject
+    internal class MamlProblemsHolderWrapper(
+        private val delegate: ProblemsHolder
     ) : ProblemsHolder(delegate.manager, delegate.file, delegate.isOnTheFly) {
 
+        companion object {
+            private val MISSING_PROPERTY_PATTERN = Regex("Missing required propert(?:y|ies):?\\s+['\"]?([^'\"]+)['\"]?")
+            private const val DISALLOWED_PROPERTY_MESSAGE = "Property is not allowed"
+        }
+
         override fun registerProblem(
             psiElement: PsiElement,
             descriptionTemplate: String,
             highlightType: ProblemHighlightType,
             vararg fixes: LocalQuickFix
         ) {
-            val additionalFixes = getQuickFixesForProblem(psiElement, descriptionTemplate)
-            val allFixes = fixes.toList() + additionalFixes.toList()
-            delegate.registerProblem(psiElement, descriptionTemplate, highlightType, *allFixes.toTypedArray())
+            val allFixes = withQuickFix(psiElement, descriptionTemplate, fixes)
+            delegate.registerProblem(psiElement, descriptionTemplate, highlightType, *allFixes)
         }
 
         override fun registerProblem(
@@ -113,9 +143,8 @@ class MamlJsonSchemaComplianceInspection : LocalInspectionTool() {
             descriptionTemplate: String,
             vararg fixes: LocalQuickFix
         ) {
-            val additionalFixes = getQuickFixesForProblem(psiElement, descriptionTemplate)
-            val allFixes = fixes.toList() + additionalFixes.toList()
-            delegate.registerProblem(psiElement, rangeInElement, descriptionTemplate, *allFixes.toTypedArray())
+            val allFixes = withQuickFix(psiElement, descriptionTemplate, fixes)
+            delegate.registerProblem(psiElement, rangeInElement, descriptionTemplate, *allFixes)
         }
 
         override fun registerProblem(
@@ -125,86 +154,37 @@ class MamlJsonSchemaComplianceInspection : LocalInspectionTool() {
             rangeInElement: TextRange?,
             vararg fixes: LocalQuickFix
         ) {
-            val additionalFixes = getQuickFixesForProblem(psiElement, descriptionTemplate)
-            val allFixes = fixes.toList() + additionalFixes.toList()
-            delegate.registerProblem(
-                psiElement,
-                descriptionTemplate,
-                highlightType,
-                rangeInElement,
-                *allFixes.toTypedArray()
-            )
+            val allFixes = withQuickFix(psiElement, descriptionTemplate, fixes)
+            delegate.registerProblem(psiElement, descriptionTemplate, highlightType, rangeInElement, *allFixes)
         }
 
-        private fun getQuickFixesForProblem(element: PsiElement, message: String): Array<LocalQuickFix> {
-            // Check for missing required property error
-            getMissingRequiredPropertyFix(element, message)?.let { return arrayOf(it) }
-
-            // Check for disallowed property error
-            getDisallowedPropertyFix(element, message)?.let { return arrayOf(it) }
-
-            return emptyArray()
+        private fun withQuickFix(
+            element: PsiElement,
+            message: String,
+            fixes: Array<out LocalQuickFix>
+        ): Array<out LocalQuickFix> {
+            val fix = getQuickFixForProblem(element, message) ?: return fixes
+            return arrayOf(*fixes, fix)
         }
 
-        private fun getMissingRequiredPropertyFix(element: PsiElement, message: String): LocalQuickFix? {
-            val missingPropPattern = Regex("Missing required propert(?:y|ies):?\\s+['\"]?([^'\"]+)['\"]?")
-            val match = missingPropPattern.find(message) ?: return null
-            val propertyName = match.groupValues.getOrNull(1) ?: return null
-
-            // Find the schema for the property to determine a suggested value
-            val obj = element as? MamlObject ?: return null
-            val walker = JsonLikePsiWalker.getWalker(element, rootSchema) ?: return null
-            val position = walker.findPosition(obj, false) ?: return null
-
-            // Resolve the schema for this position
-            val valueAdapter = walker.createValueAdapter(obj)
-            val schemas = JsonSchemaResolver(delegate.project, rootSchema, position, valueAdapter).resolve()
+        private fun getQuickFixForProblem(element: PsiElement, message: String): LocalQuickFix? {
+            // Check for missing required property error, the suggested value is resolved from the schema
+            // when the fix is applied
+            if (element is MamlObject) {
+                val propertyName = MISSING_PROPERTY_PATTERN.find(message)?.groupValues?.getOrNull(1)
+                if (propertyName != null) return MamlMissingRequiredPropertyQuickFix(propertyName)
+            }
 
-            for (schema in schemas) {
-                val propSchema = schema.getPropertyByName(propertyName)
-                val suggestedValue = getSuggestedValue(propSchema)
-                return MamlMissingRequiredPropertyQuickFix(propertyName, suggestedValue)
+            // Check for disallowed property error
+            if (message.contains(DISALLOWED_PROPERTY_MESSAGE)) {
+                // Extract property name from the key-value pair
+                val keyValue = element as? MamlKeyValue ?: element.parent as? MamlKeyValue ?: return null
+                val propertyName = keyValue.key.name ?: return null
+                return MamlRemoveDisallowedPropertyQuickFix(propertyName)
             }
 
             return null
         }
-
-        private fun getDisallowedPropertyFix(element: PsiElement, message: String): LocalQuickFix? {
-            val disallowedPropPattern = Regex("Property is not allowed")
-            if (!disallowedPropPattern.containsMatchIn(message)) return null
-
-            // Extract property name from the key-value pair
-            val keyValue = element as? com.davidseptimus.maml.lang.psi.MamlKeyValue
-                ?: element.parent as? com.davidseptimus.maml.lang.psi.MamlKeyValue
-                ?: return null
-
-            val propertyName = keyValue.key.name ?: return null
-            return MamlRemoveDisallowedPropertyQuickFix(propertyName)
-        }
-
-        private fun getSuggestedValue(schema: JsonSchemaObject?): String {
-            if (schema == null) return "\"\""
-
-            return when {
-                schema.default != null -> schema.default.toString()
-                schema.enum != null && schema.enum!!.isNotEmpty() -> {
-                    val first = schema.enum!!.first()
-                    if (first is String) "\"$first\"" else first.toString()
-                }
-
-                schema.type != null -> when (schema.type) {
-                    JsonSchemaType._string -> "\"\""
-                    JsonSchemaType._number, JsonSchemaType._integer -> "0"
-                    JsonSchemaType._boolean -> "false"
-                    JsonSchemaType._array -> "[]"
-                    JsonSchemaType._object -> "{}"
-                    JsonSchemaType._null -> "null"
-                    else -> "\"\""
-                }
-
-                else -> "\"\""
-            }
-        }
     }
 
     override fun getOptionsPane(): OptPane {
@@ -7,13 +7,21 @@ import com.intellij.codeInspection.LocalQuickFix
 import com.intellij.codeInspection.ProblemDescriptor
 import com.intellij.openapi.project.Project
 import com.intellij.psi.util.parentOfType
+import com.jetbrains.jsonSchema.extension.JsonLikePsiWalker
+import com.jetbrains.jsonSchema.ide.JsonSchemaService
+import com.jetbrains.jsonSchema.impl.JsonSchemaObject
+import com.jetbrains.jsonSchema.impl.JsonSchemaResolver
+import com.jetbrains.jsonSchema.impl.JsonSchemaType
 
 /**
  * Quick fix that adds a missing required property to a MAML object.
+ *
+ * Without an explicit [suggestedValue], the value is derived from the property's schema when the fix
+ * is applied.
  */
 class MamlMissingRequiredPropertyQuickFix(
     private val propertyName: String,
-    private val suggestedValue: String = "\"\""
+    private val suggestedValue: String? = null
 ) : LocalQuickFix {
 
     override fun getName(): String =
@@ -27,6 +35,7 @@ class MamlMissingRequiredPropertyQuickFix(
         val obj = element as? MamlObject ?: element.parentOfType<MamlObject>() ?: return
 
         val members = obj.members
+        val suggestedValue = suggestedValue ?: getSuggestedValue(findPropertySchema(obj))
 
         // Create the new key-value pair
         val newKeyValue = MamlElementFactory.createKeyValue(project, propertyName, suggestedValue)
@@ -51,4 +60,39 @@ class MamlMissingRequiredPropertyQuickFix(
             }
         }
     }
-}
\ No newline at end of file
+
+    private fun findPropertySchema(obj: MamlObject): JsonSchemaObject? {
+        val rootSchema = JsonSchemaService.Impl.get(obj.project).getSchemaObject(obj.containingFile) ?: return null
+        val walker = JsonLikePsiWalker.getWalker(obj, rootSchema) ?: return null
+        val position = walker.findPosition(obj, false) ?: return null
+
+        // Resolve the schema for this position
+        val valueAdapter = walker.createValueAdapter(obj)
+        val schemas = JsonSchemaResolver(obj.project, rootSchema, position, valueAdapter).resolve()
+        return schemas.firstOrNull()?.getPropertyByName(propertyName)
+    }
+
+    private fun getSuggestedValue(schema: JsonSchemaObject?): String {
+        if (schema == null) return "\"\""
+
+        return when {
+            schema.default != null -> schema.default.toString()
+            schema.enum != null && schema.enum!!.isNotEmpty() -> {
+                val first = schema.enum!!.first()
+                if (first is String) "\"$first\"" else first.toString()
+            }
+
+            schema.type != null -> when (schema.type) {
+                JsonSchemaType._string -> "\"\""
+                JsonSchemaType._number, JsonSchemaType._integer -> "0"
+                JsonSchemaType._boolean -> "false"
+                JsonSchemaType._array -> "[]"
+                JsonSchemaType._object -> "{}"
+                JsonSchemaType._null -> "null"
+                else -> "\"\""
+            }
+
+            else -> "\"\""
+        }
+    }
+}
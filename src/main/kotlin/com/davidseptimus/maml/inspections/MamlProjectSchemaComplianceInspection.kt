@@ -0,0 +1,173 @@
+package com.davidseptimus.maml.inspections
+
+import com.davidseptimus.maml.MamlBundle
+import com.davidseptimus.maml.lang.MamlFileType
+import com.intellij.analysis.AnalysisScope
+import com.intellij.codeInspection.*
+import com.intellij.codeInspection.ex.InspectionEngine
+import com.intellij.codeInspection.ex.LocalInspectionToolWrapper
+import com.intellij.codeInspection.options.OptPane
+import com.intellij.codeInspection.options.OptPane.checkbox
+import com.intellij.codeInspection.options.OptPane.pane
+import com.intellij.concurrency.JobLauncher
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.ReadAction
+import com.intellij.openapi.progress.EmptyProgressIndicator
+import com.intellij.openapi.progress.ProgressIndicator
+import com.intellij.openapi.progress.ProgressIndicatorProvider
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.PsiManager
+import com.intellij.util.PairProcessor
+import com.intellij.util.Processor
+import com.jetbrains.jsonSchema.ide.JsonSchemaService
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Project-wide variant of [MamlJsonSchemaComplianceInspection] for "Inspect Code" and CI runs.
+ *
+ * Files in the scope are grouped by the schema file they are mapped to, and each schema is read
+ * once per group instead of once per file. The files of a group are then validated in parallel,
+ * each in its own non-blocking read action, so a write action restarts the file being validated
+ * rather than waiting for the whole run. Files that are not mapped to exactly one schema file (for
+ * example, several mappings or none) resolve their schema one by one, as the local inspection does.
+ *
+ * Problems are the same as those of the local inspection, so only one of the two should be enabled
+ * in the profile used for a batch run.
+ */
+class MamlProjectSchemaComplianceInspection : GlobalInspectionTool() {
+
+    @JvmField
+    var caseInsensitiveEnum = false
+
+    /**
+     * Files mapped to the same [schemaFile], or files that resolve their schema themselves if it is
+     * null.
+     */
+    private class SchemaGroup(val schemaFile: VirtualFile?, val files: List<VirtualFile>)
+
+    override fun isReadActionNeeded(): Boolean = false
+
+    override fun isGraphNeeded(): Boolean = false
+
+    override fun runInspection(
+        scope: AnalysisScope,
+        manager: InspectionManager,
+        globalContext: GlobalInspectionContext,
+        problemDescriptionsProcessor: ProblemDescriptionsProcessor
+    ) {
+        val project = globalContext.project
+        val indicator = ProgressIndicatorProvider.getGlobalProgressIndicator()
+        val groups = readAction { groupBySchema(project, scope) }
+        val total = groups.sumOf { it.files.size }
+        val done = AtomicInteger()
+
+        for (group in groups) {
+            ProgressManager.checkCanceled()
+            val inspection = inspectionFor(project, group)
+            if (inspection == null) {
+                updateProgress(indicator, done.addAndGet(group.files.size), total, null)
+                continue
+            }
+            val wrapper = LocalInspectionToolWrapper(inspection)
+
+            JobLauncher.getInstance().invokeConcurrentlyUnderProgress(group.files, indicator, Processor { file ->
+                ProgressManager.checkCanceled()
+                val problems = readAction { inspect(project, file, wrapper, globalContext) }
+                if (problems != null) {
+                    val (reference, descriptors) = problems
+                    // Files are validated concurrently but reported one at a time
+                    synchronized(problemDescriptionsProcessor) {
+                        problemDescriptionsProcessor.addProblemElement(reference, *descriptors)
+                    }
+                }
+                updateProgress(indicator, done.incrementAndGet(), total, file)
+                true
+            })
+        }
+    }
+
+    private fun groupBySchema(project: Project, scope: AnalysisScope): List<SchemaGroup> {
+        val service = JsonSchemaService.Impl.get(project)
+        val bySchema = LinkedHashMap<VirtualFile?, MutableList<VirtualFile>>()
+        scope.accept { file ->
+            if (!file.isDirectory && file.fileType is MamlFileType && service.isApplicableToFile(file)) {
+                val schemaFile = service.getSchemaFilesForFile(file).singleOrNull()
+                bySchema.getOrPut(schemaFile) { mutableListOf() } += file
+            }
+            true
+        }
+        return bySchema.map { (schemaFile, files) -> SchemaGroup(schemaFile, files) }
+    }
+
+    /**
+     * Reads the schema of [group] once and returns an inspection that validates against it, or
+     * null if the schema cannot be read.
+     */
+    private fun inspectionFor(project: Project, group: SchemaGroup): MamlJsonSchemaComplianceInspection? {
+        val schemaFile = group.schemaFile ?: return MamlJsonSchemaComplianceInspection().also {
+            it.caseInsensitiveEnum = caseInsensitiveEnum
+        }
+        val schema = readAction {
+            JsonSchemaService.Impl.get(project).getSchemaObjectForSchemaFile(schemaFile)?.also {
+                // Compiled once here rather than by whichever worker gets to it first
+                MamlCompiledSchema.forSchema(it)
+            }
+        } ?: return null
+        return MamlJsonSchemaComplianceInspection.forSchema(schema, caseInsensitiveEnum)
+    }
+
+    private fun inspect(
+        project: Project,
+        file: VirtualFile,
+        wrapper: LocalInspectionToolWrapper,
+        globalContext: GlobalInspectionContext
+    ): Pair<RefEntity, Array<CommonProblemDescriptor>>? {
+        if (!file.isValid) return null
+        val psiFile = PsiManager.getInstance(project).findFile(file) ?: return null
+        val descriptors = InspectionEngine.inspectEx(
+            listOf(wrapper),
+            psiFile,
+            psiFile.textRange,
+            psiFile.textRange,
+            false,
+            false,
+            true,
+            ProgressManager.getInstance().progressIndicator ?: EmptyProgressIndicator(),
+            PairProcessor { _, _ -> true }
+        ).values.flatten()
+        if (descriptors.isEmpty()) return null
+        val reference = globalContext.refManager.getReference(psiFile) ?: return null
+        return reference to descriptors.toTypedArray<CommonProblemDescriptor>()
+    }
+
+    private fun updateProgress(indicator: ProgressIndicator?, done: Int, total: Int, file: VirtualFile?) {
+        if (indicator == null) return
+        file?.let { indicator.text2 = it.presentableUrl }
+        if (total > 0) indicator.fraction = done.toDouble() / total
+    }
+
+    /**
+     * Runs [compute] in a non-blocking read action, which is restarted if a write action comes in,
+     * or directly if the current thread can already read.
+     */
+    private fun <T> readAction(compute: () -> T): T =
+        if (ApplicationManager.getApplication().isReadAccessAllowed) {
+            compute()
+        } else {
+            ReadAction.nonBlocking<T> { compute() }.executeSynchronously()
+        }
+
+    override fun getOptionsPane(): OptPane {
+        return pane(
+            checkbox("caseInsensitiveEnum", MamlBundle.message("inspection.schema.compliance.case.insensitive.enum"))
+        )
+    }
+
+    override fun getDisplayName(): String =
+        MamlBundle.message("inspection.project.schema.compliance.display.name")
+
+    override fun getGroupDisplayName(): String =
+        MamlBundle.message("inspection.schema.compliance.group.name")
+}
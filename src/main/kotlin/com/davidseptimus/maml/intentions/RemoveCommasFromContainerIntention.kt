@@ -31,37 +31,25 @@ class RemoveCommasFromContainerIntention : PsiElementBaseIntentionAction(), Inte
         val container = element.parentOfType<MamlArray>() ?: element.parentOfType<MamlObject>() ?: return
 
         // First, ensure all items are on separate lines
-        when (container) {
-            is MamlArray -> ensureArrayItemsOnSeparateLines(container)
-            is MamlObject -> ensureObjectItemsOnSeparateLines(container)
-        }
+        ensureItemsOnSeparateLines(container)
 
         // Then remove all commas
         removeCommasFromElement(container)
     }
 
-    private fun ensureArrayItemsOnSeparateLines(array: MamlArray) {
-        val items = array.items ?: return
-        val pairs = MamlSpacingUtil.getArrayValuePairs(array)
-
-        // Process from end to beginning to avoid index issues
-        for ((first, second) in pairs.reversed()) {
-            if (MamlSpacingUtil.areSameLine(first, second)) {
-                val newline = MamlElementFactory.createNewline(array.project)
-                items.addAfter(newline, first)
-            }
-        }
-    }
-
-    private fun ensureObjectItemsOnSeparateLines(obj: MamlObject) {
-        val members = obj.members ?: return
-        val pairs = MamlSpacingUtil.getObjectKeyValuePairs(obj)
+    private fun ensureItemsOnSeparateLines(container: PsiElement) {
+        val parent = when (container) {
+            is MamlArray -> container.items
+            is MamlObject -> container.members
+            else -> null
+        } ?: return
+        val layout = MamlSpacingUtil.itemLayout(container)
 
         // Process from end to beginning to avoid index issues
-        for ((first, second) in pairs.reversed()) {
-            if (MamlSpacingUtil.areSameLine(first, second)) {
-                val newline = MamlElementFactory.createNewline(obj.project)
-                members.addAfter(newline, first)
+        for (pair in layout.pairCount - 1 downTo 0) {
+            if (layout.isSameLine(pair)) {
+                val newline = MamlElementFactory.createNewline(container.project)
+                parent.addAfter(newline, layout.items[pair])
             }
         }
     }
@@ -0,0 +1,45 @@
+package com.davidseptimus.maml.json
+
+import com.davidseptimus.maml.lang.psi.MamlKeyValue
+import com.intellij.psi.PsiElement
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Adapters of the elements of one version of a MAML file.
+ *
+ * The schema checker, completion and documentation ask for adapters of the same elements many times,
+ * e.g. once per `oneOf`/`anyOf` branch. Sharing them means every object and array lists its children
+ * only once per file change. Adapters are immutable apart from their lazily built children, and the
+ * cache is dropped with any change to the file.
+ */
+internal class MamlJsonAdapterCache private constructor() {
+
+    private val values = ConcurrentHashMap<PsiElement, MamlJsonValueAdapter<*>>()
+    private val properties = ConcurrentHashMap<MamlKeyValue, MamlJsonPropertyAdapter>()
+
+    companion object {
+        fun valueAdapter(
+            element: PsiElement,
+            create: (PsiElement) -> MamlJsonValueAdapter<*>?
+        ): MamlJsonValueAdapter<*>? {
+            val cache = of(element) ?: return create(element)
+            cache.values[element]?.let { return it }
+            val adapter = create(element) ?: return null
+            return cache.values.putIfAbsent(element, adapter) ?: adapter
+        }
+
+        fun propertyAdapter(keyValue: MamlKeyValue): MamlJsonPropertyAdapter {
+            val cache = of(keyValue) ?: return MamlJsonPropertyAdapter(keyValue)
+            return cache.properties.computeIfAbsent(keyValue, ::MamlJsonPropertyAdapter)
+        }
+
+        private fun of(element: PsiElement): MamlJsonAdapterCache? {
+            val file = element.containingFile ?: return null
+            return CachedValuesManager.getCachedValue(file) {
+                CachedValueProvider.Result.create(MamlJsonAdapterCache(), file)
+            }
+        }
+    }
+}
@@ -9,24 +9,27 @@ import com.jetbrains.jsonSchema.extension.adapters.JsonPropertyAdapter
 import com.jetbrains.jsonSchema.extension.adapters.JsonValueAdapter
 
 class MamlJsonPropertyAdapter(private val keyValue: MamlKeyValue) : JsonPropertyAdapter {
+    private val nameValueAdapter by lazy {
+        MamlJsonValueAdapter.createAdapterByType(keyValue.key)!!
+    }
+
+    private val valueAdapters by lazy {
+        val value = keyValue.value ?: return@lazy emptyList()
+        listOfNotNull(MamlJsonValueAdapter.createAdapterByType(value))
+    }
+
     override fun getName(): String {
         return keyValue.key.text.removeSurrounding("\"")
     }
 
-    override fun getNameValueAdapter(): JsonValueAdapter {
-        return MamlJsonGenericValueAdapter(keyValue.key)
-    }
+    override fun getNameValueAdapter(): JsonValueAdapter = nameValueAdapter
 
     override fun getDelegate(): PsiElement = keyValue
 
-    override fun getValues(): Collection<JsonValueAdapter> {
-        val value = keyValue.value ?: return emptyList()
-        val adapter = MamlJsonValueAdapter.createAdapterByType(value)
-        return if (adapter != null) listOf(adapter) else emptyList()
-    }
+    override fun getValues(): Collection<JsonValueAdapter> = valueAdapters
 
     override fun getParentObject(): JsonObjectValueAdapter? {
-        val parent = keyValue.parentOfType<MamlObject>()
-        return if (parent != null) MamlJsonObjectAdapter(parent) else null
+        val parent = keyValue.parentOfType<MamlObject>() ?: return null
+        return MamlJsonValueAdapter.createAdapterByType(parent) as? JsonObjectValueAdapter
     }
 }
\ No newline at end of file
@@ -4,6 +4,9 @@ import com.davidseptimus.maml.lang.psi.*
 import com.intellij.json.pointer.JsonPointerPosition
 import com.intellij.psi.PsiElement
 import com.intellij.psi.PsiFile
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import com.intellij.psi.util.PsiModificationTracker
 import com.intellij.psi.util.parentOfType
 import com.intellij.util.ThreeState
 import com.jetbrains.jsonSchema.extension.JsonLikePsiWalker
@@ -32,49 +35,76 @@ object MamlJsonPsiWalker : JsonLikePsiWalker {
 
     override fun findPosition(element: PsiElement, forceLastTransition: Boolean): JsonPointerPosition {
         val position = JsonPointerPosition()
-        var current: PsiElement = element
 
-        while (current !is PsiFile) {
-            val parent = current.parent
-
-            when {
-                // Key in a key-value pair
-                current is MamlKey && parent is MamlKeyValue -> {
-                    if (current == element && !forceLastTransition) {
-                        // Skip the current key if we're not forcing the last transition
-                        // (used in completion where the key might be incomplete)
-                    } else {
-                        position.addPrecedingStep(current.text.removeSurrounding("\""))
-                    }
-                }
+        // The step of the element itself is skipped unless forced
+        // (used in completion where the key might be incomplete)
+        var path = if (forceLastTransition) pathOf(element) else element.parent?.let(::pathOf)
+        while (path != null) {
+            when (val step = path.step) {
+                is Int -> position.addPrecedingStep(step)
+                else -> position.addPrecedingStep(step as String)
+            }
+            path = path.parent
+        }
 
-                // Value in an array
-                current is MamlValue && parent is MamlItems -> {
-                    val grandParent = parent.parent
-                    if (grandParent is MamlArray) {
-                        val values = parent.valueList
-                        val index = values.indexOf(current)
-                        if (index >= 0) {
-                            if (current != element || forceLastTransition) {
-                                position.addPrecedingStep(index)
-                            }
-                        }
-                    }
-                }
+        return position
+    }
 
-                // KeyValue in Members
-                current is MamlKeyValue && parent is MamlMembers -> {
-                    val key = current.key.text.removeSurrounding("\"")
-                    if (current != element || forceLastTransition) {
-                        position.addPrecedingStep(key)
-                    }
+    /**
+     * One step of a JSON pointer, linked to the steps of its ancestors so that paths of siblings share them.
+     */
+    private class PointerPath(val parent: PointerPath?, val step: Any)
+
+    /**
+     * Returns the pointer path from the root to [element], including the step of the element itself.
+     *
+     * Paths are cached on the elements that add a step (keys, key-value pairs and array values) until the
+     * next PSI change, so computing a pointer only walks up to the nearest ancestor with a cached path.
+     */
+    private fun pathOf(element: PsiElement): PointerPath? {
+        var current = element
+        while (current !is PsiFile) {
+            val parent = current.parent ?: return null
+            if (stepOf(current, parent) != null) {
+                val stepElement = current
+                return CachedValuesManager.getCachedValue(stepElement) {
+                    val step = stepOf(stepElement, stepElement.parent)!!
+                    val path = PointerPath(pathOf(stepElement.parent), step)
+                    CachedValueProvider.Result.create(path, PsiModificationTracker.MODIFICATION_COUNT)
                 }
             }
-
             current = parent
         }
+        return null
+    }
 
-        return position
+    /**
+     * Returns the pointer step added by [element] (a key name or an array index), or null if it adds none.
+     */
+    private fun stepOf(element: PsiElement, parent: PsiElement): Any? = when {
+        // Key in a key-value pair
+        element is MamlKey && parent is MamlKeyValue -> element.text.removeSurrounding("\"")
+
+        // KeyValue in Members
+        element is MamlKeyValue && parent is MamlMembers -> element.key.text.removeSurrounding("\"")
+
+        // Value in an array
+        element is MamlValue && parent is MamlItems && parent.parent is MamlArray -> indexOf(element, parent)
+
+        else -> null
+    }
+
+    /**
+     * Returns the index of [value] in [items] from a map built once per PSI change, instead of
+     * scanning the value list for every lookup.
+     */
+    private fun indexOf(value: MamlValue, items: MamlItems): Int? {
+        val indices = CachedValuesManager.getCachedValue(items) {
+            val map = HashMap<PsiElement, Int>()
+            items.valueList.forEachIndexed { index, item -> map[item] = index }
+            CachedValueProvider.Result.create(map, PsiModificationTracker.MODIFICATION_COUNT)
+        }
+        return indices[value]
     }
 
     override fun getPropertyNamesOfParentObject(originalPosition: PsiElement, computedPosition: PsiElement?): Set<String> {
@@ -87,7 +117,7 @@ object MamlJsonPsiWalker : JsonLikePsiWalker {
 
     override fun getParentPropertyAdapter(element: PsiElement): JsonPropertyAdapter? {
         val property = element.parentOfType<MamlKeyValue>(true) ?: return null
-        return MamlJsonPropertyAdapter(property)
+        return MamlJsonAdapterCache.propertyAdapter(property)
     }
 
     override fun isTopJsonElement(element: PsiElement): Boolean {
@@ -23,19 +23,19 @@ sealed class MamlJsonValueAdapter<T : PsiElement>(protected val element: T) : Js
     override fun getAsArray(): JsonArrayValueAdapter? = null
 
     companion object {
-        fun createAdapterByType(value: PsiElement): MamlJsonValueAdapter<*>? = when {
-            value is MamlObject -> MamlJsonObjectAdapter(value)
-            value is MamlArray -> MamlJsonArrayAdapter(value)
-            value is MamlValue -> {
-                when {
-                    value.`object` != null -> MamlJsonObjectAdapter(value.`object`!!)
-                    value.array != null -> MamlJsonArrayAdapter(value.array!!)
-                    else -> MamlJsonGenericValueAdapter(value)
-                }
-            }
+        /**
+         * Returns the adapter of [value], shared with all other users of the same version of its file.
+         */
+        fun createAdapterByType(value: PsiElement): MamlJsonValueAdapter<*>? {
+            // Values holding a container share the adapter of the container
+            val target = if (value is MamlValue) value.`object` ?: value.array ?: value else value
+            return MamlJsonAdapterCache.valueAdapter(target, ::createAdapter)
+        }
 
-            value is MamlKey -> MamlJsonGenericValueAdapter(value)
-            value is LeafPsiElement -> MamlJsonGenericValueAdapter(value)
+        private fun createAdapter(value: PsiElement): MamlJsonValueAdapter<*>? = when (value) {
+            is MamlObject -> MamlJsonObjectAdapter(value)
+            is MamlArray -> MamlJsonArrayAdapter(value)
+            is MamlValue, is MamlKey, is LeafPsiElement -> MamlJsonGenericValueAdapter(value)
             else -> null
         }
     }
@@ -86,7 +86,7 @@ class MamlJsonArrayAdapter(array: MamlArray) : MamlJsonValueAdapter<MamlArray>(a
 class MamlJsonObjectAdapter(obj: MamlObject) : MamlJsonValueAdapter<MamlObject>(obj), JsonObjectValueAdapter {
     private val childAdapters by lazy {
         val members = element.members?.keyValueList ?: emptyList()
-        members.map { MamlJsonPropertyAdapter(it) }
+        members.map { MamlJsonAdapterCache.propertyAdapter(it) }
     }
 
     override fun isObject(): Boolean = true
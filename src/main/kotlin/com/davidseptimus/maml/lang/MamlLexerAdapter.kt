@@ -1,7 +1,31 @@
 package com.davidseptimus.maml.lang
 
+import com.davidseptimus.maml.lang.psi.MamlTypes
 import com.intellij.lexer.FlexAdapter
+import com.intellij.lexer.MergeFunction
+import com.intellij.lexer.MergingLexerAdapterBase
 
 import java.io.Reader
 
-class MamlLexerAdapter : FlexAdapter(MamlLexer(null as Reader?))
+/**
+ * Lexer used for parsing. [MamlLexer] splits multiline strings into line-sized chunks for the
+ * editor highlighter; this adapter merges them back into a single [MamlTypes.MULTILINE_STRING] token.
+ */
+class MamlLexerAdapter : MergingLexerAdapterBase(FlexAdapter(MamlLexer(null as Reader?))) {
+
+    override fun getMergeFunction(): MergeFunction = MULTILINE_STRING_MERGE_FUNCTION
+
+    companion object {
+        private val MULTILINE_STRING_MERGE_FUNCTION = MergeFunction { type, originalLexer ->
+            if (type == MamlTypes.MULTILINE_STRING) {
+                // Chunks after the opening quotes all start inside the string, up to and including the closing quotes
+                while (originalLexer.tokenType == MamlTypes.MULTILINE_STRING &&
+                    originalLexer.state == MamlLexer.IN_MULTILINE_STRING
+                ) {
+                    originalLexer.advance()
+                }
+            }
+            type
+        }
+    }
+}
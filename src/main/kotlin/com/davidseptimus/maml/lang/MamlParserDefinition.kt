@@ -3,6 +3,7 @@ package com.davidseptimus.maml.lang
 import com.davidseptimus.maml.lang.parser.MamlParser
 import com.davidseptimus.maml.lang.psi.MamlFile
 import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.davidseptimus.maml.lang.psi.stubs.MamlFileElementType
 import com.intellij.lang.ASTNode
 import com.intellij.lang.ParserDefinition
 import com.intellij.lang.PsiParser
@@ -17,7 +18,7 @@ import com.intellij.psi.tree.TokenSet
 
 val WHITE_SPACES = TokenSet.create(TokenType.WHITE_SPACE)
 val COMMENTS = TokenSet.create(MamlTypes.COMMENT)
-val FILE = IFileElementType(MamlLanguage)
+val FILE = MamlFileElementType()
 
 
 class MamlParserDefinition: ParserDefinition {
@@ -38,7 +39,12 @@ class MamlParserDefinition: ParserDefinition {
     }
 
     override fun getStringLiteralElements(): TokenSet {
-        return TokenSet.create(MamlTypes.STRING, MamlTypes.MULTILINE_STRING, MamlTypes.UNTERMINATED_STRING)
+        return TokenSet.create(
+            MamlTypes.STRING,
+            MamlTypes.KEY_STRING,
+            MamlTypes.MULTILINE_STRING,
+            MamlTypes.UNTERMINATED_STRING
+        )
     }
 
     override fun getWhitespaceTokens(): TokenSet {
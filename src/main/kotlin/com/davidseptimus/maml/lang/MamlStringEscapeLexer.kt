@@ -0,0 +1,79 @@
+package com.davidseptimus.maml.lang
+
+import com.intellij.lexer.LexerBase
+import com.intellij.psi.StringEscapesTokenTypes
+import com.intellij.psi.tree.IElementType
+
+/**
+ * Splits a single-line string or key string token into plain text and escape sequences.
+ *
+ * Plain text (including the quotes) keeps the type of the original token, escapes are reported as
+ * [StringEscapesTokenTypes.VALID_STRING_ESCAPE_TOKEN] or
+ * [StringEscapesTokenTypes.INVALID_CHARACTER_ESCAPE_TOKEN]. Used as a layer of the highlighting
+ * lexer and by the invalid escape inspection, so both agree on what an escape is.
+ */
+class MamlStringEscapeLexer(private val originalLiteralToken: IElementType) : LexerBase() {
+
+    companion object {
+        // Valid escape sequences in MAML single-line strings
+        private val VALID_ESCAPES = setOf('\\', '"', 'n', 'r', 't', 'b', 'f', '/', 'u')
+    }
+
+    private var buffer: CharSequence = ""
+    private var bufferEnd = 0
+    private var contentEnd = 0
+    private var tokenStart = 0
+    private var tokenEnd = 0
+    private var tokenType: IElementType? = null
+
+    override fun start(buffer: CharSequence, startOffset: Int, endOffset: Int, initialState: Int) {
+        this.buffer = buffer
+        this.bufferEnd = endOffset
+        // The closing quote is never part of an escape
+        this.contentEnd = if (endOffset - startOffset >= 2 && buffer[endOffset - 1] == '"') endOffset - 1 else endOffset
+        this.tokenEnd = startOffset
+        advance()
+    }
+
+    override fun advance() {
+        tokenStart = tokenEnd
+        if (tokenStart >= bufferEnd) {
+            tokenType = null
+            return
+        }
+
+        if (buffer[tokenStart] == '\\' && tokenStart + 1 < contentEnd) {
+            val nextChar = buffer[tokenStart + 1]
+            if (nextChar in VALID_ESCAPES) {
+                // Unicode escape: \uXXXX (6 characters total), other escapes are 2 characters
+                val length = if (nextChar == 'u' && tokenStart + 5 < contentEnd) 6 else 2
+                tokenType = StringEscapesTokenTypes.VALID_STRING_ESCAPE_TOKEN
+                tokenEnd = tokenStart + length
+            } else {
+                tokenType = StringEscapesTokenTypes.INVALID_CHARACTER_ESCAPE_TOKEN
+                tokenEnd = tokenStart + 2
+            }
+            return
+        }
+
+        // Plain text runs up to the next escape that can start inside the content
+        var end = tokenStart + 1
+        while (end < bufferEnd && !(buffer[end] == '\\' && end + 1 < contentEnd)) {
+            end++
+        }
+        tokenType = originalLiteralToken
+        tokenEnd = end
+    }
+
+    override fun getState(): Int = 0
+
+    override fun getTokenType(): IElementType? = tokenType
+
+    override fun getTokenStart(): Int = tokenStart
+
+    override fun getTokenEnd(): Int = tokenEnd
+
+    override fun getBufferSequence(): CharSequence = buffer
+
+    override fun getBufferEnd(): Int = bufferEnd
+}
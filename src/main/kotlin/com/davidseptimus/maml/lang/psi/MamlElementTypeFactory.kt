@@ -0,0 +1,28 @@
+package com.davidseptimus.maml.lang.psi
+
+import com.davidseptimus.maml.lang.psi.stubs.MamlKeyValueStubElementType
+import com.intellij.psi.tree.IElementType
+import org.jetbrains.annotations.NonNls
+
+/**
+ * Element and token type factory referenced from the grammar for types that need custom behavior.
+ */
+object MamlElementTypeFactory {
+
+    @JvmStatic
+    fun createElementType(@NonNls name: String): IElementType {
+        return when (name) {
+            "OBJECT", "ARRAY" -> MamlReparseableElementType(name)
+            "KEY_VALUE" -> MamlKeyValueStubElementType(name)
+            else -> MamlElementType(name)
+        }
+    }
+
+    @JvmStatic
+    fun createTokenType(@NonNls name: String): IElementType {
+        return when (name) {
+            "STRING", "KEY_STRING", "MULTILINE_STRING" -> MamlStringTokenType(name)
+            else -> MamlTokenType(name)
+        }
+    }
+}
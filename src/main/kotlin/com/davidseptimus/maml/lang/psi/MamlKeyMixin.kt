@@ -20,6 +20,7 @@ abstract class MamlKeyMixin(node: ASTNode) : ASTWrapperPsiElement(node), MamlNam
     override fun setName(name: String): MamlNamedElement {
         // Find the identifier or string token that contains the actual key name
         val keyNode = node.findChildByType(MamlTypes.IDENTIFIER)
+            ?: node.findChildByType(MamlTypes.KEY_STRING)
             ?: node.findChildByType(MamlTypes.STRING)
 
         if (keyNode != null && keyNode is LeafPsiElement) {
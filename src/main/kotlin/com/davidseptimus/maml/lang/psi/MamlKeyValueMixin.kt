@@ -0,0 +1,35 @@
+package com.davidseptimus.maml.lang.psi
+
+import com.davidseptimus.maml.lang.psi.stubs.MamlKeyValueStub
+import com.intellij.extapi.psi.StubBasedPsiElementBase
+import com.intellij.icons.AllIcons
+import com.intellij.lang.ASTNode
+import com.intellij.navigation.ItemPresentation
+import com.intellij.psi.stubs.IStubElementType
+import com.intellij.psi.tree.IElementType
+import javax.swing.Icon
+
+/**
+ * Mixin implementation for key-value pairs. The name and presentation are read from the stub
+ * when there is one, so navigating to a key does not parse its file.
+ */
+abstract class MamlKeyValueMixin : StubBasedPsiElementBase<MamlKeyValueStub>, MamlKeyValue {
+
+    constructor(node: ASTNode) : super(node)
+
+    constructor(stub: MamlKeyValueStub, type: IStubElementType<*, *>) : super(stub, type)
+
+    constructor(stub: MamlKeyValueStub, type: IElementType, node: ASTNode) : super(stub, type, node)
+
+    override fun getName(): String = greenStub?.name ?: key.name
+
+    override fun getPresentation(): ItemPresentation {
+        return object : ItemPresentation {
+            override fun getPresentableText(): String = name
+
+            override fun getLocationString(): String? = containingFile?.name
+
+            override fun getIcon(unused: Boolean): Icon = AllIcons.Nodes.Property
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.davidseptimus.maml.lang.psi
+
+import com.davidseptimus.maml.lang.MamlLanguage
+import com.davidseptimus.maml.lang.MamlLexerAdapter
+import com.intellij.lang.ASTNode
+import com.intellij.lang.Language
+import com.intellij.openapi.project.Project
+import com.intellij.psi.TokenType
+import com.intellij.psi.tree.IElementType
+import com.intellij.psi.tree.IReparseableElementType
+import org.jetbrains.annotations.NonNls
+
+/**
+ * Element type for objects and arrays that lets the platform reparse a single container
+ * instead of the whole file when an edit stays within its delimiters.
+ *
+ * The new text is only accepted if it is a single, balanced container of the same kind,
+ * so the result of reparsing the subtree is always the same as a full parse.
+ */
+class MamlReparseableElementType(@NonNls debugName: String) : IReparseableElementType(debugName, MamlLanguage) {
+
+    override fun isReparseable(
+        currentNode: ASTNode,
+        newText: CharSequence,
+        fileLanguage: Language,
+        project: Project
+    ): Boolean {
+        val (open, close) = when (this) {
+            MamlTypes.OBJECT -> MamlTypes.LBRACE to MamlTypes.RBRACE
+            MamlTypes.ARRAY -> MamlTypes.LBRACKET to MamlTypes.RBRACKET
+            else -> return false
+        }
+        return isBalancedContainer(newText, open, close)
+    }
+
+    private fun isBalancedContainer(text: CharSequence, open: IElementType, close: IElementType): Boolean {
+        val lexer = MamlLexerAdapter()
+        lexer.start(text)
+
+        if (lexer.tokenType != open) return false
+
+        // Track nesting of both braces and brackets so that a container cannot end
+        // inside a nested one or swallow text belonging to a sibling
+        val openers = ArrayDeque<IElementType>()
+        while (true) {
+            val tokenType = lexer.tokenType ?: return false
+            when (tokenType) {
+                MamlTypes.LBRACE, MamlTypes.LBRACKET -> openers.addLast(tokenType)
+                MamlTypes.RBRACE, MamlTypes.RBRACKET -> {
+                    val expected = if (tokenType == MamlTypes.RBRACE) MamlTypes.LBRACE else MamlTypes.LBRACKET
+                    if (openers.removeLastOrNull() != expected) return false
+                    if (openers.isEmpty()) {
+                        lexer.advance()
+                        return tokenType == close && lexer.tokenType == null
+                    }
+                }
+                MamlTypes.UNTERMINATED_STRING, TokenType.BAD_CHARACTER -> return false
+                MamlTypes.MULTILINE_STRING ->
+                    if (!MamlStringTokenType.isTerminatedMultilineString(lexer.tokenSequence)) return false
+            }
+            lexer.advance()
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.davidseptimus.maml.lang.psi
+
+import com.davidseptimus.maml.lang.MamlLexerAdapter
+import com.intellij.lang.ASTFactory
+import com.intellij.lang.ASTNode
+import com.intellij.psi.tree.IReparseableLeafElementType
+import org.jetbrains.annotations.NonNls
+
+/**
+ * Token type for quoted strings, quoted keys and multiline strings.
+ *
+ * When an edit keeps the string delimiters intact, the platform can swap the leaf for one
+ * with the new text instead of relexing and reparsing the surrounding tree.
+ */
+class MamlStringTokenType(@NonNls debugName: String) : MamlTokenType(debugName),
+    IReparseableLeafElementType<ASTNode> {
+
+    override fun reparseLeaf(leaf: ASTNode, newText: CharSequence): ASTNode? {
+        val lexer = MamlLexerAdapter()
+        lexer.start(newText)
+
+        // A key on its own is lexed as a plain string, the colon that makes it a key is outside the leaf
+        val expectedType = if (this == MamlTypes.KEY_STRING) MamlTypes.STRING else this
+        if (lexer.tokenType != expectedType || lexer.tokenEnd != newText.length) return null
+        if (this == MamlTypes.MULTILINE_STRING && !isTerminatedMultilineString(newText)) return null
+
+        return ASTFactory.leaf(this, newText)
+    }
+
+    companion object {
+        /**
+         * The lexer also returns [MamlTypes.MULTILINE_STRING] for a string that runs to the end
+         * of the text, so the closing delimiter has to be checked separately.
+         */
+        internal fun isTerminatedMultilineString(text: CharSequence): Boolean {
+            return text.length >= 6 && text.endsWith("\"\"\"")
+        }
+    }
+}
@@ -4,7 +4,7 @@ import com.davidseptimus.maml.lang.MamlLanguage
 import com.intellij.psi.tree.IElementType
 import org.jetbrains.annotations.NonNls
 
-class MamlTokenType(@NonNls debugName: String) :
+open class MamlTokenType(@NonNls debugName: String) :
     IElementType(debugName, MamlLanguage) {
 
     override fun toString(): String {
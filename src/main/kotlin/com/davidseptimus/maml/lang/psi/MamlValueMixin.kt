@@ -3,12 +3,47 @@ package com.davidseptimus.maml.lang.psi
 import com.intellij.extapi.psi.ASTWrapperPsiElement
 import com.intellij.lang.ASTNode
 import com.intellij.openapi.paths.WebReference
+import com.intellij.openapi.util.Key
 import com.intellij.openapi.util.TextRange
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.VirtualFileManager
 import com.intellij.psi.*
 import com.intellij.psi.impl.source.tree.LeafPsiElement
 
 abstract class MamlValueMixin(node: ASTNode) : ASTWrapperPsiElement(node), MamlValueElement {
 
+    companion object {
+        private val RESOLVED_PATH = Key.create<ResolvedPath>("maml.resolved.path")
+
+        // Characters that never appear in the file paths we resolve
+        private const val NON_PATH_CHARS = "\n\r\t\"<>|*"
+        private const val MAX_PATH_LENGTH = 1024
+        private val FILE_EXTENSION = Regex("\\.[A-Za-z0-9]{1,10}$")
+
+        /**
+         * Rejects strings that cannot be file paths without touching the VFS: text with line breaks,
+         * tabs or characters not allowed in paths, overly long text, and prose, i.e. text with spaces
+         * but neither a path separator nor a file extension.
+         */
+        internal fun isPossibleFilePath(text: String): Boolean {
+            if (text.isBlank() || text.length > MAX_PATH_LENGTH) return false
+            if (text.any { it in NON_PATH_CHARS }) return false
+            if (text.first().isWhitespace() || text.last().isWhitespace()) return false
+            if (' ' in text && '/' !in text && '\\' !in text && !FILE_EXTENSION.containsMatchIn(text)) return false
+            return true
+        }
+    }
+
+    /**
+     * Result of resolving [path] against [directory], valid while the VFS structure is unchanged.
+     */
+    private class ResolvedPath(
+        val path: String,
+        val directory: VirtualFile,
+        val vfsModificationCount: Long,
+        val target: VirtualFile?
+    )
+
     override fun getReference(): PsiReference? {
         // Only provide references for string values, not objects or arrays
         val child = firstChild
@@ -32,15 +67,38 @@ abstract class MamlValueMixin(node: ASTNode) : ASTWrapperPsiElement(node), MamlV
                 if (fileRef.startsWith("file://")) {
                     fileRef = fileRef.removePrefix("file://")
                 }
-                val directory = element.containingFile
-                    ?.containingDirectory?.virtualFile ?: return null
-                val file = resolveFile(fileRef, directory) ?: return null
+                val file = element.resolveFilePath(fileRef) ?: return null
 
                 return PsiManager.getInstance(element.project).findFile(file)
             }
         }
     }
 
+    /**
+     * Resolves a file path relative to the containing directory. The result is kept until the path,
+     * the directory or the VFS structure (files created, deleted, moved or renamed) changes, so
+     * highlighting passes do not look up every string in the VFS again after each edit.
+     */
+    private fun resolveFilePath(path: String): VirtualFile? {
+        if (!isPossibleFilePath(path)) return null
+        val directory = containingFile?.containingDirectory?.virtualFile ?: return null
+
+        val modificationCount = VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS.modificationCount
+        val cached = getUserData(RESOLVED_PATH)
+        val target = if (cached != null &&
+            cached.path == path &&
+            cached.directory == directory &&
+            cached.vfsModificationCount == modificationCount
+        ) {
+            cached.target
+        } else {
+            resolveFile(path, directory).also {
+                putUserData(RESOLVED_PATH, ResolvedPath(path, directory, modificationCount, it))
+            }
+        }
+        return target?.takeIf { it.isValid }
+    }
+
     override fun getReferences(): Array<PsiReference> {
         val reference = reference
         return if (reference != null) arrayOf(reference) else PsiReference.EMPTY_ARRAY
@@ -50,7 +108,6 @@ abstract class MamlValueMixin(node: ASTNode) : ASTWrapperPsiElement(node), MamlV
         return ref
     }
 
-
     override val ref: String
         get() = text.trim().removeSurrounding("\"")
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.davidseptimus.maml.lang.psi.stubs
+
+import com.davidseptimus.maml.lang.MamlLanguage
+import com.davidseptimus.maml.lang.psi.MamlFile
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.lang.ASTNode
+import com.intellij.lang.LighterAST
+import com.intellij.lang.LighterASTNode
+import com.intellij.openapi.util.registry.Registry
+import com.intellij.psi.stubs.LightStubBuilder
+import com.intellij.psi.stubs.PsiFileStub
+import com.intellij.psi.tree.ILightStubFileElementType
+
+/**
+ * File element type of MAML files. Stubs are built from the light AST and only hold key-value
+ * pairs, down to [maxKeyDepth] levels of nesting.
+ */
+class MamlFileElementType : ILightStubFileElementType<PsiFileStub<MamlFile>>(MamlLanguage) {
+
+    // The depth is part of the version, so changing it rebuilds all stubs
+    override fun getStubVersion(): Int = STUB_VERSION * 100 + maxKeyDepth
+
+    override fun getExternalId(): String = "maml.FILE"
+
+    override fun getBuilder(): LightStubBuilder = object : LightStubBuilder() {
+        override fun skipChildProcessingWhenBuildingStubs(parent: ASTNode, node: ASTNode): Boolean =
+            node.elementType == MamlTypes.KEY_VALUE &&
+                MamlKeyValueStubElementType.keyDepth(node) > maxKeyDepth
+
+        override fun skipNode(tree: LighterAST, parent: LighterASTNode, node: LighterASTNode): Boolean =
+            node.tokenType == MamlTypes.KEY_VALUE &&
+                MamlKeyValueStubElementType.keyDepth(tree, node) > maxKeyDepth
+    }
+
+    companion object {
+        private const val STUB_VERSION = 1
+        private const val MAX_KEY_DEPTH_REGISTRY_KEY = "maml.stubs.max.key.depth"
+        private const val DEFAULT_MAX_KEY_DEPTH = 3
+
+        /**
+         * Deepest level of key-value pairs kept in stubs, a top-level key being level 1.
+         */
+        val maxKeyDepth: Int
+            get() = Registry.intValue(MAX_KEY_DEPTH_REGISTRY_KEY, DEFAULT_MAX_KEY_DEPTH).coerceIn(1, 99)
+    }
+}
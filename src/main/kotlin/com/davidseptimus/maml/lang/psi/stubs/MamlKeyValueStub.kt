@@ -0,0 +1,11 @@
+package com.davidseptimus.maml.lang.psi.stubs
+
+import com.davidseptimus.maml.lang.psi.MamlKeyValue
+import com.intellij.psi.stubs.StubElement
+
+/**
+ * Stub of a key-value pair, holding just the key name.
+ */
+interface MamlKeyValueStub : StubElement<MamlKeyValue> {
+    val name: String
+}
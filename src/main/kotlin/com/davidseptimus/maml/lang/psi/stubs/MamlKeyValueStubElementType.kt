@@ -0,0 +1,80 @@
+package com.davidseptimus.maml.lang.psi.stubs
+
+import com.davidseptimus.maml.lang.MamlLanguage
+import com.davidseptimus.maml.lang.psi.MamlKeyValue
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.davidseptimus.maml.lang.psi.impl.MamlKeyValueImpl
+import com.intellij.lang.ASTNode
+import com.intellij.lang.LighterAST
+import com.intellij.lang.LighterASTNode
+import com.intellij.psi.PsiElement
+import com.intellij.psi.impl.source.tree.LightTreeUtil
+import com.intellij.psi.stubs.ILightStubElementType
+import com.intellij.psi.stubs.IndexSink
+import com.intellij.psi.stubs.StubElement
+import com.intellij.psi.stubs.StubInputStream
+import com.intellij.psi.stubs.StubOutputStream
+import org.jetbrains.annotations.NonNls
+
+/**
+ * Element type of key-value pairs. Pairs nested up to [MamlFileElementType.maxKeyDepth] objects deep
+ * are stored in stubs and indexed by key name in [MamlKeyValueStubIndex].
+ */
+class MamlKeyValueStubElementType(@NonNls debugName: String) :
+    ILightStubElementType<MamlKeyValueStub, MamlKeyValue>(debugName, MamlLanguage) {
+
+    override fun getExternalId(): String = "maml.$this"
+
+    override fun createPsi(stub: MamlKeyValueStub): MamlKeyValue = MamlKeyValueImpl(stub, this)
+
+    override fun createStub(psi: MamlKeyValue, parentStub: StubElement<out PsiElement>?): MamlKeyValueStub =
+        MamlKeyValueStubImpl(parentStub, psi.key.name)
+
+    override fun createStub(tree: LighterAST, node: LighterASTNode, parentStub: StubElement<*>): MamlKeyValueStub {
+        val key = LightTreeUtil.firstChildOfType(tree, node, MamlTypes.KEY)
+        // Same as MamlKey.getName, quotes are removed and escapes are kept
+        val name = key?.let { LightTreeUtil.toFilteredString(tree, it, null).removeSurrounding("\"") } ?: ""
+        return MamlKeyValueStubImpl(parentStub, name)
+    }
+
+    override fun shouldCreateStub(node: ASTNode): Boolean = keyDepth(node) <= MamlFileElementType.maxKeyDepth
+
+    override fun shouldCreateStub(tree: LighterAST, node: LighterASTNode, parentStub: StubElement<*>): Boolean =
+        keyDepth(tree, node) <= MamlFileElementType.maxKeyDepth
+
+    override fun serialize(stub: MamlKeyValueStub, dataStream: StubOutputStream) {
+        dataStream.writeName(stub.name)
+    }
+
+    override fun deserialize(dataStream: StubInputStream, parentStub: StubElement<*>?): MamlKeyValueStub =
+        MamlKeyValueStubImpl(parentStub, dataStream.readNameString() ?: "")
+
+    override fun indexStub(stub: MamlKeyValueStub, sink: IndexSink) {
+        sink.occurrence(MamlKeyValueStubIndex.KEY, stub.name)
+    }
+
+    companion object {
+        /**
+         * Number of key-value pairs from [node] up to the root, counting [node] itself.
+         */
+        internal fun keyDepth(node: ASTNode): Int {
+            var depth = 0
+            var current: ASTNode? = node
+            while (current != null) {
+                if (current.elementType == MamlTypes.KEY_VALUE) depth++
+                current = current.treeParent
+            }
+            return depth
+        }
+
+        internal fun keyDepth(tree: LighterAST, node: LighterASTNode): Int {
+            var depth = 0
+            var current: LighterASTNode? = node
+            while (current != null) {
+                if (current.tokenType == MamlTypes.KEY_VALUE) depth++
+                current = tree.getParent(current)
+            }
+            return depth
+        }
+    }
+}
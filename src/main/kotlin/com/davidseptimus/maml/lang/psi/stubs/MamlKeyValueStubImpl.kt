@@ -0,0 +1,10 @@
+package com.davidseptimus.maml.lang.psi.stubs
+
+import com.davidseptimus.maml.lang.psi.MamlKeyValue
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.psi.stubs.IStubElementType
+import com.intellij.psi.stubs.StubBase
+import com.intellij.psi.stubs.StubElement
+
+class MamlKeyValueStubImpl(parent: StubElement<*>?, override val name: String) :
+    StubBase<MamlKeyValue>(parent, MamlTypes.KEY_VALUE as IStubElementType<*, *>), MamlKeyValueStub
@@ -0,0 +1,17 @@
+package com.davidseptimus.maml.lang.psi.stubs
+
+import com.davidseptimus.maml.lang.psi.MamlKeyValue
+import com.intellij.psi.stubs.StringStubIndexExtension
+import com.intellij.psi.stubs.StubIndexKey
+
+/**
+ * Stub index of key-value pairs by key name.
+ */
+class MamlKeyValueStubIndex : StringStubIndexExtension<MamlKeyValue>() {
+
+    override fun getKey(): StubIndexKey<String, MamlKeyValue> = KEY
+
+    companion object {
+        val KEY: StubIndexKey<String, MamlKeyValue> = StubIndexKey.createIndexKey("maml.key.value.name")
+    }
+}
@@ -0,0 +1,40 @@
+package com.davidseptimus.maml.navigation
+
+import com.davidseptimus.maml.lang.psi.MamlKeyValue
+import com.davidseptimus.maml.lang.psi.stubs.MamlKeyValueStubIndex
+import com.intellij.navigation.ChooseByNameContributorEx
+import com.intellij.navigation.NavigationItem
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.psi.stubs.StubIndex
+import com.intellij.util.Processor
+import com.intellij.util.indexing.FindSymbolParameters
+import com.intellij.util.indexing.IdFilter
+
+/**
+ * Go to Symbol support for MAML keys, served from [MamlKeyValueStubIndex].
+ *
+ * Results are stub based, so files are not parsed until a key is opened. Keys nested deeper than
+ * the stub depth are not listed.
+ */
+class MamlGotoSymbolContributor : ChooseByNameContributorEx {
+
+    override fun processNames(processor: Processor<in String>, scope: GlobalSearchScope, filter: IdFilter?) {
+        StubIndex.getInstance().processAllKeys(MamlKeyValueStubIndex.KEY, processor, scope, filter)
+    }
+
+    override fun processElementsWithName(
+        name: String,
+        processor: Processor<in NavigationItem>,
+        parameters: FindSymbolParameters
+    ) {
+        StubIndex.getInstance().processElements(
+            MamlKeyValueStubIndex.KEY,
+            name,
+            parameters.project,
+            parameters.searchScope,
+            parameters.idFilter,
+            MamlKeyValue::class.java,
+            processor
+        )
+    }
+}
@@ -3,6 +3,7 @@ package com.davidseptimus.maml.util
 import com.davidseptimus.maml.lang.psi.MamlArray
 import com.davidseptimus.maml.lang.psi.MamlObject
 import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.openapi.util.text.StringUtil
 import com.intellij.psi.PsiElement
 import com.intellij.psi.PsiWhiteSpace
 import com.intellij.psi.util.elementType
@@ -13,76 +14,65 @@ import com.intellij.psi.util.elementType
 object MamlSpacingUtil {
 
     /**
-     * Check if two elements are on the same line.
+     * The items of an array or the key-values of an object, with whether each item is on the same
+     * line as the next one and whether a comma separates them.
+     *
+     * Built in a single pass over the container's children, so checking every pair of adjacent
+     * items costs O(items) and reads whitespace in place instead of copying its text.
      */
-    fun areSameLine(first: PsiElement, second: PsiElement): Boolean {
-        var current: PsiElement? = first.nextSibling
-        while (current != null && current != second) {
-            if (current is PsiWhiteSpace && current.text.contains('\n')) {
-                return false
-            }
-            current = current.nextSibling
-        }
-        return true
+    class ItemLayout internal constructor(
+        val items: List<PsiElement>,
+        private val sameLine: BooleanArray,
+        private val comma: BooleanArray
+    ) {
+        /**
+         * Number of adjacent item pairs; pair `i` is `items[i]` and `items[i + 1]`.
+         */
+        val pairCount: Int get() = sameLine.size
+
+        fun isSameLine(pair: Int): Boolean = sameLine[pair]
+
+        fun isMissingComma(pair: Int): Boolean = sameLine[pair] && !comma[pair]
     }
 
-    /**
-     * Check if there's a comma between two elements.
-     */
-    fun hasCommaBetween(first: PsiElement, second: PsiElement): Boolean {
-        var current: PsiElement? = first.nextSibling
-        while (current != null && current != second) {
-            if (current.elementType == MamlTypes.COMMA) {
-                return true
-            }
-            current = current.nextSibling
-        }
-        return false
-    }
+    private val EMPTY_LAYOUT = ItemLayout(emptyList(), BooleanArray(0), BooleanArray(0))
 
     /**
-     * Get all consecutive element pairs in an array.
-     * Returns a list of pairs (current, next) for all adjacent values.
+     * Computes the [ItemLayout] of an array or object; other elements have no items.
      */
-    fun getArrayValuePairs(array: MamlArray): List<Pair<PsiElement, PsiElement>> {
-        val items = array.items ?: return emptyList()
-        val values = items.valueList
-        if (values.size < 2) return emptyList()
-
-        return values.zipWithNext()
-    }
-
-    /**
-     * Get all consecutive element pairs in an object.
-     * Returns a list of pairs (current, next) for all adjacent key-values.
-     */
-    fun getObjectKeyValuePairs(obj: MamlObject): List<Pair<PsiElement, PsiElement>> {
-        val members = obj.members ?: return emptyList()
-        val keyValues = members.keyValueList
-        if (keyValues.size < 2) return emptyList()
+    fun itemLayout(container: PsiElement): ItemLayout {
+        val items: List<PsiElement> = when (container) {
+            is MamlArray -> container.items?.valueList
+            is MamlObject -> container.members?.keyValueList
+            else -> null
+        } ?: return EMPTY_LAYOUT
+        if (items.size < 2) {
+            return ItemLayout(items, BooleanArray(0), BooleanArray(0))
+        }
 
-        return keyValues.zipWithNext()
+        val sameLine = BooleanArray(items.size - 1) { true }
+        val comma = BooleanArray(items.size - 1)
+        for (pair in 0 until items.size - 1) {
+            val next = items[pair + 1]
+            var current: PsiElement? = items[pair].nextSibling
+            while (current != null && current != next) {
+                if (current is PsiWhiteSpace && StringUtil.containsLineBreak(current.node.chars)) {
+                    sameLine[pair] = false
+                } else if (current.elementType == MamlTypes.COMMA) {
+                    comma[pair] = true
+                }
+                current = current.nextSibling
+            }
+        }
+        return ItemLayout(items, sameLine, comma)
     }
 
     /**
      * Check if a container (array or object) has items on the same line without commas.
      */
     fun hasMissingCommas(container: PsiElement): Boolean {
-        return when (container) {
-            is MamlArray -> {
-                getArrayValuePairs(container).any { (first, second) ->
-                    areSameLine(first, second) && !hasCommaBetween(first, second)
-                }
-            }
-
-            is MamlObject -> {
-                getObjectKeyValuePairs(container).any { (first, second) ->
-                    areSameLine(first, second) && !hasCommaBetween(first, second)
-                }
-            }
-
-            else -> false
-        }
+        val layout = itemLayout(container)
+        return (0 until layout.pairCount).any { layout.isMissingComma(it) }
     }
 
     /**
@@ -121,20 +111,10 @@ object MamlSpacingUtil {
      * Check if all items in a container are on separate lines.
      */
     fun allItemsOnSeparateLines(container: PsiElement): Boolean {
-        return when (container) {
-            is MamlArray -> {
-                getArrayValuePairs(container).all { (first, second) ->
-                    !areSameLine(first, second)
-                }
-            }
-
-            is MamlObject -> {
-                getObjectKeyValuePairs(container).all { (first, second) ->
-                    !areSameLine(first, second)
-                }
-            }
-
-            else -> false
+        if (container !is MamlArray && container !is MamlObject) {
+            return false
         }
+        val layout = itemLayout(container)
+        return (0 until layout.pairCount).none { layout.isSameLine(it) }
     }
-}
\ No newline at end of file
+}
@@ -4,11 +4,15 @@ import com.davidseptimus.maml.highlighting.MamlSyntaxHighlighter
 import com.davidseptimus.maml.lang.MamlFileType
 import com.davidseptimus.maml.lang.MamlLanguage
 import com.davidseptimus.maml.lang.psi.MamlFile
+import com.davidseptimus.maml.lang.psi.MamlKeyValue
 import com.davidseptimus.maml.lang.psi.MamlObject
+import com.intellij.openapi.command.WriteCommandAction
 import com.intellij.openapi.fileTypes.FileTypeManager
 import com.intellij.openapi.fileTypes.SyntaxHighlighter
+import com.intellij.psi.PsiDocumentManager
 import com.intellij.psi.PsiManager
 import com.intellij.psi.util.PsiTreeUtil
+import com.intellij.testFramework.ParsingTestCase
 import com.intellij.testFramework.fixtures.BasePlatformTestCase
 import com.intellij.testFramework.fixtures.CodeInsightTestFixture
 
@@ -163,6 +167,49 @@ class MamlIntegrationTest : BasePlatformTestCase() {
         assertNotNull("Should still find object after edit", obj)
     }
 
+    fun testEditInsideMultilineStringKeepsSurroundingTree() {
+        myFixture.configureByText(
+            "test.maml",
+            """
+            {
+              before: 1
+              prompt: ""${'"'}
+                Long prose
+              ""${'"'}
+              after: [true, false]
+            }
+            """.trimIndent()
+        )
+        val psiFile = myFixture.file as MamlFile
+        val keyValues = PsiTreeUtil.findChildrenOfType(psiFile, MamlKeyValue::class.java).toList()
+        val document = myFixture.editor.document
+        val offset = document.text.indexOf("prose")
+
+        WriteCommandAction.runWriteCommandAction(project) {
+            document.insertString(offset, "more \"quoted\" {text} ")
+        }
+        PsiDocumentManager.getInstance(project).commitDocument(document)
+
+        keyValues.forEach { assertTrue("Key-values around the edit should be kept", it.isValid) }
+        assertTrue(psiFile.text.contains("more \"quoted\" {text} prose"))
+        ParsingTestCase.ensureCorrectReparse(psiFile)
+    }
+
+    fun testEditBreakingStringDelimitersReparsesSurroundingTree() {
+        myFixture.configureByText("test.maml", """{ key: "value", other: 1 }""")
+        val psiFile = myFixture.file as MamlFile
+        val document = myFixture.editor.document
+
+        WriteCommandAction.runWriteCommandAction(project) {
+            document.insertString(document.text.indexOf("value"), "\", broken: \"")
+        }
+        PsiDocumentManager.getInstance(project).commitDocument(document)
+
+        val keys = PsiTreeUtil.findChildrenOfType(psiFile, MamlKeyValue::class.java).map { it.key.text }
+        assertEquals(listOf("key", "broken", "other"), keys)
+        ParsingTestCase.ensureCorrectReparse(psiFile)
+    }
+
     // Virtual File Tests
 
     fun testVirtualFileIsValid() {
@@ -0,0 +1,76 @@
+package com.davidseptimus.maml.annotators
+
+import com.davidseptimus.maml.highlighting.MamlTokenAttributes
+import com.davidseptimus.maml.lang.psi.MamlValueMixin
+import com.intellij.openapi.editor.colors.TextAttributesKey
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+class MamlAnnotatorTest : BasePlatformTestCase() {
+
+    override fun getTestDataPath(): String = "src/test/testData"
+
+    private fun highlightedTexts(attributes: TextAttributesKey): List<String> {
+        return myFixture.doHighlighting()
+            .filter { it.forcedTextAttributesKey == attributes }
+            .map { it.text }
+    }
+
+    fun testEscapesProduceNoAnnotations() {
+        myFixture.configureByText("test.maml", "{ \"a\\tb\": \"line\\nbreak \\q\" }")
+
+        assertEmpty(highlightedTexts(MamlTokenAttributes.VALID_ESCAPE))
+        assertEmpty(highlightedTexts(MamlTokenAttributes.INVALID_ESCAPE))
+    }
+
+    fun testQuotedKeyProducesNoAnnotations() {
+        myFixture.configureByText("test.maml", "{ \"quoted\": 1, plain: \"quoted value\" }")
+
+        assertEmpty(highlightedTexts(MamlTokenAttributes.KEY))
+    }
+
+    fun testUrlHighlightedInValueAndComment() {
+        myFixture.configureByText(
+            "test.maml",
+            """
+            {
+              # docs at https://example.com/docs
+              site: "https://example.com"
+              multi: ""${'"'}https://example.com/multi""${'"'}
+            }
+            """.trimIndent()
+        )
+
+        assertEquals(
+            listOf("https://example.com", "https://example.com/docs", "https://example.com/multi"),
+            highlightedTexts(MamlTokenAttributes.URL).sorted()
+        )
+    }
+
+    fun testColorGutterIconOnlyForColorValues() {
+        myFixture.configureByText("test.maml", "{ a: \"#ff0000\", b: \"rgb(0, 128, 255)\", c: \"red\", d: 42 }")
+
+        val icons = myFixture.findAllGutters().filter { it.tooltipText?.startsWith("Color:") == true }
+        assertEquals(2, icons.size)
+    }
+
+    fun testFilePathHighlightedOnceFileExists() {
+        myFixture.addFileToProject("data/config.txt", "")
+        myFixture.configureByText("test.maml", "{ a: \"data/config.txt\", b: \"notes.txt\", c: \"just some words\" }")
+
+        assertEquals(listOf("data/config.txt"), highlightedTexts(MamlTokenAttributes.FILE_PATH))
+
+        // Creating the file is picked up although the MAML file did not change
+        myFixture.addFileToProject("notes.txt", "")
+        assertEquals(listOf("data/config.txt", "notes.txt"), highlightedTexts(MamlTokenAttributes.FILE_PATH).sorted())
+    }
+
+    fun testProseIsNotAFilePath() {
+        assertTrue(MamlValueMixin.isPossibleFilePath("data/config.txt"))
+        assertTrue(MamlValueMixin.isPossibleFilePath("my notes.txt"))
+        assertTrue(MamlValueMixin.isPossibleFilePath("app"))
+        assertFalse(MamlValueMixin.isPossibleFilePath("just some words"))
+        assertFalse(MamlValueMixin.isPossibleFilePath("first line\nsecond line"))
+        assertFalse(MamlValueMixin.isPossibleFilePath(" padded "))
+        assertFalse(MamlValueMixin.isPossibleFilePath(""))
+    }
+}
@@ -0,0 +1,54 @@
+package com.davidseptimus.maml.annotators
+
+import com.davidseptimus.maml.annotators.MamlColorParser.ColorFormat
+import junit.framework.TestCase
+import java.awt.Color
+
+class MamlColorParserTest : TestCase() {
+
+    private fun parse(text: String): Pair<Color, ColorFormat>? =
+        MamlColorParser.parse(text)?.let { it.color to it.format }
+
+    fun testHexColors() {
+        assertEquals(Color(0xAA, 0xBB, 0xCC) to ColorFormat.HEX_RGB, parse("#abc"))
+        assertEquals(Color(0x12, 0x34, 0x56) to ColorFormat.HEX_RRGGBB, parse("#123456"))
+        assertEquals(Color(0x12, 0x34, 0x56, 0x78) to ColorFormat.HEX_RGBA, parse("#12345678"))
+        assertEquals(Color(0xFF, 0x00, 0x00) to ColorFormat.HEX_RRGGBB, parse("#FF0000"))
+    }
+
+    fun testInvalidHexColors() {
+        assertNull(parse("#abcd"))
+        assertNull(parse("#12345g"))
+        assertNull(parse("#1234567"))
+        assertNull(parse("abc"))
+    }
+
+    fun testRgbColors() {
+        assertEquals(Color(0, 128, 255) to ColorFormat.RGB, parse("rgb(0, 128, 255)"))
+        assertEquals(Color(1, 2, 3) to ColorFormat.RGB, parse("RGB ( 1,2 , 3 )"))
+        assertEquals(Color(1, 2, 3, 127) to ColorFormat.RGBA, parse("rgba(1, 2, 3, 0.5)"))
+        assertEquals(Color(1, 2, 3, 63) to ColorFormat.RGBA, parse("rgba(1, 2, 3, .25)"))
+        assertEquals(Color(1, 2, 3, 255) to ColorFormat.RGBA, parse("rgba(1, 2, 3, 1.00)"))
+        assertEquals(Color(1, 2, 3, 0) to ColorFormat.RGBA, parse("rgba(1, 2, 3, 0)"))
+    }
+
+    fun testInvalidRgbColors() {
+        assertNull(parse("rgb(256, 0, 0)"))
+        assertNull(parse("rgb(0, 0)"))
+        assertNull(parse("rgb(0, 0, 0, 0.5)"))
+        assertNull(parse("rgba(0, 0, 0)"))
+        assertNull(parse("rgba(0, 0, 0, 1.5)"))
+        assertNull(parse("rgba(0, 0, 0, 00.5)"))
+        assertNull(parse("rgb(0, 0, 0) "))
+        assertNull(parse("rgb(1000, 0, 0)"))
+        assertNull(parse("red"))
+    }
+
+    fun testPreCheckRejectsOtherStrings() {
+        assertFalse(MamlColorParser.mayBeColor("hello world"))
+        assertFalse(MamlColorParser.mayBeColor("#1"))
+        assertFalse(MamlColorParser.mayBeColor("r".repeat(100)))
+        assertTrue(MamlColorParser.mayBeColor("#fff"))
+        assertTrue(MamlColorParser.mayBeColor("Rgb(1, 2, 3)"))
+    }
+}
@@ -174,4 +174,22 @@ class MamlMissingCommaAnnotatorTest : BasePlatformTestCase() {
         """.trimIndent()
         )
     }
-}
\ No newline at end of file
+
+    fun testLargeSingleLineArrayReportsOnlyMissingComma() {
+        val items = (0 until 10_000).map { it.toString() }
+        val text = "[" + items.take(5_000).joinToString(", ") + " " + items.drop(5_000).joinToString(", ") + "]"
+        myFixture.configureByText("test.maml", text)
+
+        val commaErrors = myFixture.doHighlighting(HighlightSeverity.ERROR)
+            .filter { it.description.contains("Missing comma") }
+
+        assertEquals(1, commaErrors.size)
+        assertEquals(text.indexOf("4999 ") + 4, commaErrors.single().startOffset)
+    }
+
+    fun testCommentBetweenItemsSeparatesLines() {
+        myFixture.configureByText("test.maml", "{\n  a: 1 # first\n  b: 2\n}")
+        val highlights = myFixture.doHighlighting(HighlightSeverity.ERROR)
+        assertTrue(highlights.none { it.description.contains("Missing comma") })
+    }
+}
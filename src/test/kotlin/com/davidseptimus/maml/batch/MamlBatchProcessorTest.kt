@@ -0,0 +1,74 @@
+package com.davidseptimus.maml.batch
+
+import com.davidseptimus.maml.json.mapSchema
+import com.intellij.openapi.vfs.VfsUtilCore
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+class MamlBatchProcessorTest : BasePlatformTestCase() {
+
+    private fun process(files: List<VirtualFile>, options: MamlBatchProcessor.Options): MamlBatchReport =
+        MamlBatchProcessor(project, options).process(files)
+
+    fun testReportsFilesThatNeedFormatting() {
+        val formatted = myFixture.addFileToProject("formatted.maml", "{\n  a: 1\n}").virtualFile
+        val unformatted = myFixture.addFileToProject("unformatted.maml", "{\na:1\n}").virtualFile
+
+        val report = process(listOf(formatted, unformatted), MamlBatchProcessor.Options(validate = false, threads = 2))
+
+        assertEquals(listOf(false, true), report.files.map { it.changed })
+        assertEquals("{\na:1\n}", VfsUtilCore.loadText(unformatted))
+    }
+
+    fun testWritesFormattedText() {
+        val file = myFixture.addFileToProject("unformatted.maml", "{\na:1\n}").virtualFile
+
+        val report = process(listOf(file), MamlBatchProcessor.Options(validate = false, write = true))
+
+        assertEquals(1, report.changedCount)
+        assertEquals("{\n  a: 1\n}", VfsUtilCore.loadText(file))
+    }
+
+    fun testReportsSchemaProblemsWithPositions() {
+        myFixture.mapSchema("""{ "type": "object", "properties": { "port": { "type": "integer" } } }""")
+        val valid = myFixture.addFileToProject("valid.maml", "{\n  port: 80\n}").virtualFile
+        val invalid = myFixture.addFileToProject("invalid.maml", "{\n  port: \"80\"\n}").virtualFile
+
+        val report = process(listOf(valid, invalid), MamlBatchProcessor.Options(format = false, threads = 2))
+
+        assertEmpty(report.files[0].problems)
+        val problem = report.files[1].problems.single()
+        assertEquals(2, problem.line)
+        assertEquals(9, problem.column)
+        assertEquals("ERROR", problem.severity)
+    }
+
+    fun testProcessesManyFilesInOrder() {
+        val files = (0 until 50).map { myFixture.addFileToProject("file$it.maml", "{id:$it}").virtualFile }
+
+        val report = process(files, MamlBatchProcessor.Options(validate = false, threads = 4))
+
+        assertEquals(files.map { it.path }, report.files.map { it.path })
+        assertEquals(50, report.changedCount)
+    }
+
+    fun testJsonReport() {
+        val report = MamlBatchReport(
+            listOf(
+                MamlBatchReport.FileResult("/a.maml", null, emptyList()),
+                MamlBatchReport.FileResult(
+                    "/b.maml",
+                    "{}",
+                    listOf(MamlBatchReport.Problem(2, 9, "ERROR", "Incompatible types.\nRequired: \"integer\""))
+                )
+            ),
+            elapsedMillis = 5
+        )
+
+        val json = report.toJson()
+
+        assertTrue(json, json.contains("{\"path\": \"/a.maml\", \"changed\": false, \"problems\": []}"))
+        assertTrue(json, json.contains("\"message\": \"Incompatible types.\\nRequired: \\\"integer\\\"\""))
+        assertTrue(json, json.contains("\"summary\": {\"files\": 2, \"changed\": 1, \"problems\": 1, \"errors\": 0"))
+    }
+}
@@ -1,5 +1,7 @@
 package com.davidseptimus.maml.completion
 
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.psi.PsiDocumentManager
 import com.intellij.testFramework.fixtures.BasePlatformTestCase
 
 class MamlKnownKeysCompletionTest : BasePlatformTestCase() {
@@ -79,4 +81,95 @@ class MamlKnownKeysCompletionTest : BasePlatformTestCase() {
             assertTrue("Should have some completions in value position", lookupStrings.isNotEmpty())
         }
     }
-}
\ No newline at end of file
+
+    fun testKnownKeysFromOtherFiles() {
+        myFixture.addFileToProject("other.maml", "{ region: \"eu\", replicas: 3 }")
+        myFixture.configureByText("test.maml", """
+            {
+              name: "John"
+              <caret>
+            }
+        """.trimIndent())
+        myFixture.completeBasic()
+
+        val lookupStrings = myFixture.lookupElementStrings
+        assertNotNull("Expected completion suggestions", lookupStrings)
+        assertTrue("Expected 'region' in completions", lookupStrings!!.contains("region"))
+        assertTrue("Expected 'replicas' in completions", lookupStrings.contains("replicas"))
+        assertFalse("'name' already exists in the current object", lookupStrings.contains("name"))
+    }
+
+    fun testKnownKeysRankedByFrequency() {
+        myFixture.configureByText("test.maml", """
+            {
+              a: { rare: 1, common: 1 }
+              b: [{ common: 2 }, { common: 3 }]
+              c: {
+                <caret>
+              }
+            }
+        """.trimIndent())
+        myFixture.completeBasic()
+
+        val lookupStrings = myFixture.lookupElementStrings!!
+        assertTrue(lookupStrings.indexOf("common") < lookupStrings.indexOf("rare"))
+    }
+
+    fun testKnownKeysUpdatedAfterEdit() {
+        myFixture.configureByText("test.maml", """
+            {
+              a: { first: 1 }
+              b: {
+                <caret>
+              }
+            }
+        """.trimIndent())
+        myFixture.completeBasic()
+        assertTrue(myFixture.lookupElementStrings!!.contains("first"))
+        assertFalse(myFixture.lookupElementStrings!!.contains("second"))
+        myFixture.lookup.hideLookup(true)
+
+        // Add a key to another object, outside the one being completed
+        val document = myFixture.editor.document
+        WriteCommandAction.runWriteCommandAction(project) {
+            document.insertString(document.text.indexOf("first"), "second: 2, ")
+        }
+        PsiDocumentManager.getInstance(project).commitDocument(document)
+        myFixture.completeBasic()
+
+        val lookupStrings = myFixture.lookupElementStrings
+        assertNotNull("Expected completion suggestions", lookupStrings)
+        assertTrue("Expected 'first' in completions", lookupStrings!!.contains("first"))
+        assertTrue("Expected 'second' in completions", lookupStrings.contains("second"))
+    }
+
+    fun testKnownKeysUpdatedAfterEditInLargeObject() {
+        // Large enough for the counts of each object to be cached
+        val padding = (0 until 500).joinToString(", ") { "pad$it: 1" }
+        myFixture.configureByText("test.maml", """
+            {
+              a: { first: 1, $padding }
+              b: { other: 1, $padding }
+              c: {
+                <caret>
+              }
+            }
+        """.trimIndent())
+        myFixture.completeBasic()
+        assertFalse(myFixture.lookupElementStrings!!.contains("second"))
+        myFixture.lookup.hideLookup(true)
+
+        val document = myFixture.editor.document
+        WriteCommandAction.runWriteCommandAction(project) {
+            document.insertString(document.text.indexOf("first"), "second: 2, ")
+        }
+        PsiDocumentManager.getInstance(project).commitDocument(document)
+        myFixture.completeBasic()
+
+        val lookupStrings = myFixture.lookupElementStrings!!
+        assertTrue("Expected 'second' in completions", lookupStrings.contains("second"))
+        assertTrue("Expected 'other' from the unchanged object", lookupStrings.contains("other"))
+        // Keys in both objects occur more often than keys in one of them
+        assertTrue(lookupStrings.indexOf("pad0") < lookupStrings.indexOf("first"))
+    }
+}
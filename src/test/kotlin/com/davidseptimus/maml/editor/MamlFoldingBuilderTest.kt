@@ -0,0 +1,81 @@
+package com.davidseptimus.maml.editor
+
+import com.davidseptimus.maml.lang.psi.MamlTypes
+import com.intellij.lang.folding.FoldingDescriptor
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+class MamlFoldingBuilderTest : BasePlatformTestCase() {
+
+    private fun foldRegions(text: String, quick: Boolean = false): List<FoldingDescriptor> {
+        myFixture.configureByText("test.maml", text)
+        return MamlFoldingBuilder().buildFoldRegions(myFixture.file, myFixture.editor.document, quick).toList()
+    }
+
+    private fun FoldingDescriptor.text(): String = range.substring(myFixture.file.text)
+
+    fun testRegionsInDocumentOrder() {
+        val regions = foldRegions(
+            """
+            # Header
+            # continued
+            {
+              list: [
+                1
+              ]
+              single: [1, 2]
+              text: ""${'"'}
+                first line
+              ""${'"'}
+              # Trailing
+              # comment
+              nested: {
+                a: 1
+              }
+            }
+            """.trimIndent()
+        )
+
+        assertEquals(
+            listOf("# Header", "{", "[", "\"\"\"", "# Trailing", "{"),
+            regions.map { it.text().lineSequence().first().trim() }
+        )
+        assertEquals(regions.map { it.range.startOffset }.sorted(), regions.map { it.range.startOffset })
+    }
+
+    fun testSeparatedCommentsNotFolded() {
+        val regions = foldRegions("# one\n\n# two\n{ a: 1 }")
+
+        assertEmpty(regions)
+    }
+
+    fun testQuickModeLimitsRegions() {
+        val text = (0 until 2_000).joinToString("\n", "[\n", "\n]") { "  {\n    id: $it\n  }" }
+
+        val quick = foldRegions(text, quick = true)
+        val full = foldRegions(text)
+
+        assertEquals(2_001, full.size)
+        assertTrue(quick.size < full.size)
+        // Quick mode folds the start of the file the same way
+        assertEquals(full.take(quick.size).map { it.range }, quick.map { it.range })
+    }
+
+    fun testPlaceholders() {
+        val regions = foldRegions("{\n  a: [\n    1\n  ]\n}\n# First words of\n# the comment")
+        val builder = MamlFoldingBuilder()
+
+        assertEquals(listOf("{...}", "[...]", "# First words of..."), regions.map { builder.getPlaceholderText(it.element) })
+    }
+
+    fun testMultilineStringPlaceholderUsesFirstLineWords() {
+        val words = (1..20).joinToString(" ") { "word$it" }
+        val regions = foldRegions("{\n  text: \"\"\"  $words\n  second line\n  \"\"\"\n  empty: \"\"\"\n  x\n  \"\"\"\n}")
+        val builder = MamlFoldingBuilder()
+        val strings = regions.filter { it.element.elementType == MamlTypes.MULTILINE_STRING }
+
+        assertEquals(
+            listOf("\"\"\"${(1..10).joinToString(" ") { "word$it" }}...\"\"\"", "\"\"\"...\"\"\""),
+            strings.map { builder.getPlaceholderText(it.element) }
+        )
+    }
+}
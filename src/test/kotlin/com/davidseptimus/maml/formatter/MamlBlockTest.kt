@@ -0,0 +1,79 @@
+package com.davidseptimus.maml.formatter
+
+import com.intellij.application.options.CodeStyle
+import com.intellij.formatting.Block
+import com.intellij.formatting.FormattingContext
+import com.intellij.formatting.FormattingMode
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.util.TextRange
+import com.intellij.psi.codeStyle.CodeStyleManager
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+class MamlBlockTest : BasePlatformTestCase() {
+
+    private fun rootBlock(range: TextRange): Block {
+        val context = FormattingContext.create(
+            myFixture.file,
+            range,
+            CodeStyle.getSettings(myFixture.file),
+            FormattingMode.REFORMAT
+        )
+        return MamlFormattingBuilderModel().createModel(context).rootBlock
+    }
+
+    private fun countBlocks(block: Block): Int = 1 + block.subBlocks.sumOf { countBlocks(it) }
+
+    private fun largeArray(): String = (0 until 1_000).joinToString(",\n    ", "[\n    ", "\n  ]")
+
+    fun testBlocksOutsideRangeAreLeaves() {
+        myFixture.configureByText("test.maml", "{\n  items: ${largeArray()}\n  name: \"x\"\n}")
+        val nameOffset = myFixture.file.text.indexOf("name")
+
+        val root = rootBlock(TextRange(nameOffset, nameOffset + 4))
+
+        // The array is a single leaf spanning its original text
+        val arrayStart = myFixture.file.text.indexOf('[')
+        val arrayBlock = generateSequence(root) { block ->
+            block.subBlocks.firstOrNull { it.textRange.contains(arrayStart) }
+        }.last()
+        assertTrue(arrayBlock.isLeaf)
+        assertEquals('[', myFixture.file.text[arrayBlock.textRange.startOffset])
+        assertTrue(countBlocks(root) < 20)
+    }
+
+    fun testWholeFileRangeBuildsAllBlocks() {
+        myFixture.configureByText("test.maml", "{\n  items: ${largeArray()}\n}")
+
+        val root = rootBlock(myFixture.file.textRange)
+
+        // Every array item and comma has its own block
+        assertTrue(countBlocks(root) > 2_000)
+    }
+
+    fun testPartialReformatAlignsWithPropertiesOutsideRange() {
+        myFixture.configureByText(
+            "test.maml",
+            "{\n  a    : 1\n  bbbbb: 2\n  <selection>cc : 3</selection>\n}"
+        )
+
+        CodeStyle.doWithTemporarySettings(project, CodeStyle.getSettings(project)) { settings ->
+            settings.getCustomSettings(MamlCodeStyleSettings::class.java).PROPERTY_ALIGNMENT =
+                MamlCodeStyleSettings.ALIGN_PROPERTY_ON_COLON
+            WriteCommandAction.runWriteCommandAction(project) {
+                val selection = myFixture.editor.selectionModel
+                CodeStyleManager.getInstance(project)
+                    .reformatText(myFixture.file, selection.selectionStart, selection.selectionEnd)
+            }
+        }
+
+        assertTrue(myFixture.editor.document.text, myFixture.editor.document.text.contains("  cc   : 3"))
+    }
+
+    fun testEnterIndentsInsideLargeFile() {
+        myFixture.configureByText("test.maml", "{\n  items: ${largeArray()}\n  nested: {\n    a: 1<caret>\n  }\n}")
+
+        myFixture.type("\n")
+
+        myFixture.checkResult("{\n  items: ${largeArray()}\n  nested: {\n    a: 1\n    <caret>\n  }\n}")
+    }
+}
@@ -0,0 +1,93 @@
+package com.davidseptimus.maml.formatter
+
+import com.intellij.application.options.CodeStyle
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.psi.codeStyle.CodeStyleManager
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+class MamlPreFormatProcessorTest : BasePlatformTestCase() {
+
+    private fun reformat(text: String, configure: (MamlCodeStyleSettings) -> Unit): String {
+        myFixture.configureByText("test.maml", text)
+        CodeStyle.doWithTemporarySettings(project, CodeStyle.getSettings(project)) { settings ->
+            configure(settings.getCustomSettings(MamlCodeStyleSettings::class.java))
+            WriteCommandAction.runWriteCommandAction(project) {
+                val selection = myFixture.editor.selectionModel
+                val codeStyleManager = CodeStyleManager.getInstance(project)
+                if (selection.hasSelection()) {
+                    codeStyleManager.reformatText(myFixture.file, selection.selectionStart, selection.selectionEnd)
+                } else {
+                    codeStyleManager.reformat(myFixture.file)
+                }
+            }
+        }
+        return myFixture.editor.document.text
+    }
+
+    fun testAllStepsInOnePass() {
+        val result = reformat("{\"a\": [1, 2, 3,],\n#comment\n\"b-c\": true}") {
+            it.REMOVE_COMMAS = true
+            it.KEY_QUOTING_STYLE = MamlCodeStyleSettings.KeyQuotingStyle.REMOVE_QUOTES.id
+            it.SPACE_AFTER_COMMENT_HASH = CommentHashSpaceOptions.AT_LEAST_ONE.id
+        }
+
+        assertFalse(result, result.contains(","))
+        assertFalse(result, result.contains("\""))
+        assertTrue(result, result.contains("# comment"))
+        assertTrue(result, result.contains("1\n"))
+        assertTrue(result, result.contains("2\n"))
+    }
+
+    fun testKeysQuoted() {
+        val result = reformat("{\n  name: \"x\"\n  nested: { id: 1 }\n}") {
+            it.KEY_QUOTING_STYLE = MamlCodeStyleSettings.KeyQuotingStyle.ADD_QUOTES.id
+        }
+
+        assertTrue(result, result.contains("\"name\": \"x\""))
+        assertTrue(result, result.contains("\"nested\": {"))
+        assertTrue(result, result.contains("\"id\": 1"))
+    }
+
+    fun testTrailingCommasRemoved() {
+        val result = reformat("{\n  a: [1, 2,]\n  b: 2,\n}") {
+            it.KEEP_TRAILING_COMMA = false
+        }
+
+        // Only the comma between the two items is left
+        assertEquals(result, 1, result.count { it == ',' })
+        assertTrue(result, result.indexOf(',') < result.indexOf('2'))
+    }
+
+    fun testOnlySelectedRangeChanged() {
+        val result = reformat(
+            "{\n  \"first\": [1, 2],\n  <selection>\"second\": [3, 4],</selection>\n  \"third\": [5, 6]\n}"
+        ) {
+            it.REMOVE_COMMAS = true
+            it.KEY_QUOTING_STYLE = MamlCodeStyleSettings.KeyQuotingStyle.REMOVE_QUOTES.id
+        }
+
+        assertTrue(result, result.contains("\"first\": [1, 2],"))
+        assertTrue(result, result.contains("\"third\": [5, 6]"))
+        assertFalse(result, result.contains("\"second\""))
+        assertTrue(result, result.contains("second: ["))
+        assertFalse(result, result.contains("3, 4"))
+    }
+
+    fun testCommasRemovedFromLargeArray() {
+        val text = buildString {
+            append("[\n")
+            for (i in 0 until 20_000) {
+                append(i)
+                append(if (i % 10 == 9) ",\n" else ", ")
+            }
+            append("]")
+        }
+
+        val result = reformat(text) { it.REMOVE_COMMAS = true }
+
+        assertFalse(result.contains(","))
+        // Every item ends up on its own line
+        val lines = result.lines().map { it.trim() }.filter { it.isNotEmpty() && it != "[" && it != "]" }
+        assertEquals((0 until 20_000).map { it.toString() }, lines)
+    }
+}
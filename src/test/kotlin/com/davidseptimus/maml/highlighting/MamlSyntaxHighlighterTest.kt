@@ -2,6 +2,7 @@ package com.davidseptimus.maml.highlighting
 
 import com.davidseptimus.maml.lang.psi.MamlTypes
 import com.intellij.openapi.editor.colors.TextAttributesKey
+import com.intellij.psi.StringEscapesTokenTypes
 import com.intellij.psi.TokenType
 import com.intellij.psi.tree.IElementType
 import org.junit.Assert.assertArrayEquals
@@ -95,6 +96,21 @@ class MamlSyntaxHighlighterTest {
         assertHighlighting(MamlTypes.MULTILINE_STRING, MamlTokenAttributes.MULTILINE_STRING)
     }
 
+    @Test
+    fun testKeyStringHighlighting() {
+        assertHighlighting(MamlTypes.KEY_STRING, MamlTokenAttributes.KEY)
+    }
+
+    @Test
+    fun testValidEscapeHighlighting() {
+        assertHighlighting(StringEscapesTokenTypes.VALID_STRING_ESCAPE_TOKEN, MamlTokenAttributes.VALID_ESCAPE)
+    }
+
+    @Test
+    fun testInvalidEscapeHighlighting() {
+        assertHighlighting(StringEscapesTokenTypes.INVALID_CHARACTER_ESCAPE_TOKEN, MamlTokenAttributes.INVALID_ESCAPE)
+    }
+
     @Test
     fun testMultilineStringInheritsFromString() {
         // Multiline string should have its own key that falls back to STRING
@@ -230,6 +246,7 @@ class MamlSyntaxHighlighterTest {
             MamlTypes.COMMA,
             MamlTypes.COLON,
             MamlTypes.STRING,
+            MamlTypes.KEY_STRING,
             MamlTypes.MULTILINE_STRING,
             MamlTypes.NUMBER,
             MamlTypes.TRUE,
@@ -260,6 +277,7 @@ class MamlSyntaxHighlighterTest {
             MamlTypes.COMMA,
             MamlTypes.COLON,
             MamlTypes.STRING,
+            MamlTypes.KEY_STRING,
             MamlTypes.MULTILINE_STRING,
             MamlTypes.NUMBER,
             MamlTypes.TRUE,
@@ -0,0 +1,103 @@
+package com.davidseptimus.maml.index
+
+import com.intellij.openapi.application.WriteAction
+import com.intellij.openapi.vfs.VfsUtil
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+class MamlKeyPathIndexTest : BasePlatformTestCase() {
+
+    private fun offsetsOf(text: String, vararg keys: String): List<Int> =
+        keys.map { text.indexOf(it) }
+
+    fun testKeysIndexedByNameAndPointer() {
+        val text = """
+            {
+              name: "app"
+              "server": {
+                port: 8080
+              }
+            }
+        """.trimIndent()
+
+        val index = MamlKeyPathIndex.indexKeys(text)
+
+        assertEquals(offsetsOf(text, "name"), index["name:name"])
+        assertEquals(offsetsOf(text, "\"server\""), index["name:server"])
+        assertEquals(offsetsOf(text, "port"), index["name:port"])
+        assertEquals(offsetsOf(text, "name"), index["path:/name"])
+        assertEquals(offsetsOf(text, "port"), index["path:/server/port"])
+        assertEquals(6, index.size)
+    }
+
+    fun testArrayItemsUseIndexSegments() {
+        val text = """
+            {
+              servers: [
+                { host: "a" }
+                { host: "b" }, "skipped", { host: "c" }
+              ]
+            }
+        """.trimIndent()
+
+        val index = MamlKeyPathIndex.indexKeys(text)
+
+        assertEquals(3, index["name:host"]?.size)
+        assertEquals(listOf(text.indexOf("host")), index["path:/servers/0/host"])
+        assertNotNull(index["path:/servers/1/host"])
+        assertNotNull(index["path:/servers/3/host"])
+        assertNull(index["path:/servers/2/host"])
+    }
+
+    fun testPointerSegmentsAreEscaped() {
+        val index = MamlKeyPathIndex.indexKeys("{ \"a/b\": { \"c~d\": 1 } }")
+
+        assertNotNull(index["path:/a~1b"])
+        assertNotNull(index["path:/a~1b/c~0d"])
+    }
+
+    fun testIncompleteKeyIsNotIndexed() {
+        val index = MamlKeyPathIndex.indexKeys("{ done: 1, pending }")
+
+        assertNotNull(index["name:done"])
+        assertNull(index["name:pending"])
+    }
+
+    fun testKeysFoundAcrossFiles() {
+        myFixture.addFileToProject("a.maml", "{ shared: 1, onlyA: 2 }")
+        myFixture.addFileToProject("b.maml", "{ nested: { shared: 3 } }")
+
+        val scope = GlobalSearchScope.projectScope(project)
+        assertContainsElements(MamlKeyPathIndex.collectKeyNames(scope), "shared", "onlyA", "nested")
+
+        val files = mutableListOf<String>()
+        MamlKeyPathIndex.processKeyPathOffsets("/nested/shared", scope) { file, _ ->
+            files.add(file.name)
+            true
+        }
+        assertEquals(listOf("b.maml"), files)
+    }
+
+    fun testAllKeyNamesUpdatedAfterChange() {
+        val file = myFixture.addFileToProject("a.maml", "{ kept: 1, removed: 2 }").virtualFile
+        assertContainsElements(MamlKeyPathIndex.getAllKeyNames(project), "kept", "removed")
+
+        WriteAction.runAndWait<Throwable> { VfsUtil.saveText(file, "{ kept: 1 }") }
+
+        val names = MamlKeyPathIndex.getAllKeyNames(project)
+        assertContainsElements(names, "kept")
+        assertDoesntContain(names, "removed")
+    }
+
+    fun testAllKeyNamesKeptAfterEditingOtherFile() {
+        myFixture.configureByText("notes.txt", "<caret>")
+        myFixture.addFileToProject("a.maml", "{ kept: 1 }")
+        val names = MamlKeyPathIndex.getAllKeyNames(project)
+
+        myFixture.type("kept")
+        PsiDocumentManager.getInstance(project).commitAllDocuments()
+
+        assertSame(names, MamlKeyPathIndex.getAllKeyNames(project))
+    }
+}
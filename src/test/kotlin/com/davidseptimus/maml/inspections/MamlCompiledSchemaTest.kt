@@ -0,0 +1,188 @@
+package com.davidseptimus.maml.inspections
+
+import com.intellij.codeInspection.InspectionManager
+import com.intellij.codeInspection.ProblemDescriptor
+import com.intellij.codeInspection.ProblemsHolder
+import com.intellij.openapi.application.WriteAction
+import com.intellij.openapi.vfs.VfsUtil
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.jsonSchema.ide.JsonSchemaService
+import com.jetbrains.jsonSchema.impl.JsonSchemaObject
+
+class MamlCompiledSchemaTest : BasePlatformTestCase() {
+
+    private var schemaCount = 0
+
+    fun testTypes() {
+        val schema = compile("""{ "type": "object", "properties": { "port": { "type": "integer" }, "ratio": { "type": "number" } } }""")
+
+        assertEmpty(validate(schema, "{ port: 80, ratio: 80 }"))
+        assertEquals(listOf("Incompatible types.\nRequired: integer. Actual: number."), validate(schema, "{ port: 1.5 }"))
+        assertEquals(listOf("Incompatible types.\nRequired: number. Actual: string."), validate(schema, "{ ratio: \"1\" }"))
+        assertEquals(listOf("Incompatible types.\nRequired: object. Actual: array."), validate(schema, "[]"))
+    }
+
+    fun testRequiredAndAdditionalProperties() {
+        val schema = compile(
+            """
+            {
+              "type": "object",
+              "properties": { "name": { "type": "string" }, "port": { "type": "integer" } },
+              "required": ["name", "port", "host"],
+              "additionalProperties": false
+            }
+        """.trimIndent()
+        )
+
+        assertEquals(
+            listOf("Property is not allowed", "Missing required properties 'port', 'host'"),
+            validate(schema, "{ name: \"app\", extra: 1 }")
+        )
+        assertEquals(listOf("Missing required property 'host'"), validate(schema, "{ name: \"app\", port: 80 }"))
+    }
+
+    fun testQuickFixForEachMissingAndDisallowedProperty() {
+        val schema = compile("""{ "properties": { "name": {} }, "required": ["name", "port", "host"], "additionalProperties": false }""")
+
+        val fixes = validateWithFixes(schema, "{ extra: 1 }")
+
+        assertEquals(
+            listOf(
+                listOf("Remove disallowed property 'extra'"),
+                listOf("Add required property 'name'", "Add required property 'port'", "Add required property 'host'")
+            ),
+            fixes
+        )
+    }
+
+    fun testRequiredBitsetSpansSeveralWords() {
+        val names = (0 until 100).map { "key$it" }
+        val schema = compile("""{ "required": [${names.joinToString(", ") { "\"$it\"" }}] }""")
+
+        val text = names.filter { it != "key70" }.joinToString("\n", "{\n", "\n}") { "$it: 1" }
+        assertEquals(listOf("Missing required property 'key70'"), validate(schema, text))
+    }
+
+    fun testRequiredPropertiesNotDeclaredAreAdditional() {
+        val closed = compile("""{ "properties": { "name": {} }, "required": ["name", "host"], "additionalProperties": false }""")
+        assertEquals(listOf("Property is not allowed"), validate(closed, "{ name: \"app\", host: \"localhost\" }"))
+
+        val typed = compile("""{ "required": ["port"], "additionalProperties": { "type": "integer" } }""")
+        assertEquals(listOf("Incompatible types.\nRequired: integer. Actual: string."), validate(typed, "{ port: \"80\" }"))
+    }
+
+    fun testAdditionalPropertiesSchema() {
+        val schema = compile("""{ "properties": { "name": {} }, "additionalProperties": { "type": "integer" } }""")
+
+        assertEquals(listOf("Incompatible types.\nRequired: integer. Actual: boolean."), validate(schema, "{ name: true, port: true }"))
+    }
+
+    fun testEnum() {
+        val schema = compile("""{ "properties": { "level": { "enum": ["debug", "info", 1, null] } } }""")
+
+        assertEmpty(validate(schema, "{ level: \"info\" }"))
+        assertEmpty(validate(schema, "{ level: 1 }"))
+        assertEmpty(validate(schema, "{ level: null }"))
+        assertEquals(listOf("Value should be one of: \"debug\", \"info\", 1, null"), validate(schema, "{ level: \"INFO\" }"))
+        assertEmpty(validate(schema, "{ level: \"INFO\" }", caseInsensitiveEnum = true))
+        assertSize(1, validate(schema, "{ level: { name: \"info\" } }"))
+    }
+
+    fun testStringBounds() {
+        val schema = compile("""{ "properties": { "id": { "type": "string", "pattern": "^[a-z]+$", "minLength": 2, "maxLength": 4 } } }""")
+
+        assertEmpty(validate(schema, "{ id: \"abc\" }"))
+        assertEquals(listOf("String violates the pattern: '^[a-z]+$'"), validate(schema, "{ id: \"ab1\" }"))
+        assertEquals(listOf("String is shorter than 2"), validate(schema, "{ id: \"a\" }"))
+        assertEquals(listOf("String is longer than 4"), validate(schema, "{ id: \"abcde\" }"))
+    }
+
+    fun testNumberBounds() {
+        val schema = compile("""{ "properties": { "port": { "minimum": 1, "exclusiveMaximum": 65536 } } }""")
+
+        assertEmpty(validate(schema, "{ port: 65535 }"))
+        assertEquals(listOf("Less than the minimum 1"), validate(schema, "{ port: 0 }"))
+        assertEquals(listOf("Greater than or equal to the exclusive maximum 65536"), validate(schema, "{ port: 65536 }"))
+    }
+
+    fun testArrays() {
+        val schema = compile("""{ "type": "array", "items": { "type": "string" }, "minItems": 1, "maxItems": 2 }""")
+
+        assertEmpty(validate(schema, "[\"a\", \"b\"]"))
+        assertEquals(listOf("Array is shorter than 1"), validate(schema, "[]"))
+        assertEquals(listOf("Array is longer than 2"), validate(schema, "[\"a\", \"b\", \"c\"]"))
+        assertEquals(listOf("Incompatible types.\nRequired: string. Actual: integer."), validate(schema, "[1]"))
+    }
+
+    fun testRecursiveLocalReference() {
+        val schema = compile(
+            """
+            {
+              "definitions": {
+                "node": {
+                  "type": "object",
+                  "properties": { "value": { "type": "integer" }, "children": { "type": "array", "items": { "${'$'}ref": "#/definitions/node" } } }
+                }
+              },
+              "${'$'}ref": "#/definitions/node"
+            }
+        """.trimIndent()
+        )
+
+        assertEquals(
+            listOf("Incompatible types.\nRequired: integer. Actual: string."),
+            validate(schema, "{ value: 1, children: [{ value: 2, children: [{ value: \"three\" }] }] }")
+        )
+    }
+
+    fun testUnsupportedKeywordsAreNotCompiled() {
+        assertNull(MamlCompiledSchema.compile(schemaObject("""{ "properties": { "a": { "oneOf": [{ "type": "string" }, { "type": "integer" }] } } }""")))
+        assertNull(MamlCompiledSchema.compile(schemaObject("""{ "items": { "type": "string", "format": "email" } }""")))
+        assertNull(MamlCompiledSchema.compile(schemaObject("""{ "properties": { "a": { "${'$'}ref": "other.json" } } }""")))
+        // Keywords next to a $ref are merged into the referenced schema by the resolver
+        assertNull(
+            MamlCompiledSchema.compile(
+                schemaObject("""{ "definitions": { "a": { "type": "object" } }, "properties": { "a": { "${'$'}ref": "#/definitions/a", "required": ["id"] } } }""")
+            )
+        )
+    }
+
+    fun testCachedUntilSchemaFileChanges() {
+        val schemaFile = myFixture.addFileToProject("cached.json", """{ "type": "object" }""").virtualFile
+        val compiled = MamlCompiledSchema.forSchema(schemaObject(schemaFile))
+        assertNotNull(compiled)
+        assertSame(compiled, MamlCompiledSchema.forSchema(schemaObject(schemaFile)))
+
+        WriteAction.runAndWait<Throwable> { VfsUtil.saveText(schemaFile, """{ "type": "array" }""") }
+
+        val recompiled = MamlCompiledSchema.forSchema(schemaObject(schemaFile))
+        assertNotSame(compiled, recompiled)
+        assertEquals(listOf("Incompatible types.\nRequired: array. Actual: object."), validate(recompiled!!, "{}"))
+    }
+
+    private fun compile(schemaText: String): MamlCompiledSchema {
+        val compiled = MamlCompiledSchema.compile(schemaObject(schemaText))
+        assertNotNull(schemaText, compiled)
+        return compiled!!
+    }
+
+    private fun schemaObject(schemaText: String): JsonSchemaObject =
+        schemaObject(myFixture.addFileToProject("schema${schemaCount++}.json", schemaText).virtualFile)
+
+    private fun schemaObject(schemaFile: VirtualFile): JsonSchemaObject =
+        JsonSchemaService.Impl.get(project).getSchemaObjectForSchemaFile(schemaFile)!!
+
+    private fun validate(schema: MamlCompiledSchema, text: String, caseInsensitiveEnum: Boolean = false): List<String> =
+        problems(schema, text, caseInsensitiveEnum).map { it.descriptionTemplate }
+
+    private fun validateWithFixes(schema: MamlCompiledSchema, text: String): List<List<String>> =
+        problems(schema, text, false).map { problem -> problem.fixes.orEmpty().map { it.name } }
+
+    private fun problems(schema: MamlCompiledSchema, text: String, caseInsensitiveEnum: Boolean): List<ProblemDescriptor> {
+        val file = myFixture.configureByText("test.maml", text)
+        val holder = ProblemsHolder(InspectionManager.getInstance(project), file, false)
+        schema.validate(file.firstChild, holder, caseInsensitiveEnum)
+        return holder.results
+    }
+}
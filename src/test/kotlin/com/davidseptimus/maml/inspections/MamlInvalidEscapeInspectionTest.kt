@@ -0,0 +1,35 @@
+package com.davidseptimus.maml.inspections
+
+import com.intellij.codeInspection.LocalInspectionTool
+
+class MamlInvalidEscapeInspectionTest : MamlInspectionTestBase() {
+
+    override fun getInspection(): LocalInspectionTool = MamlInvalidEscapeInspection()
+
+    fun testValidEscapes() {
+        doTest("{ a: \"tab\\there \\\"quoted\\\" \\\\ \\/ \\u00e9\" }", 0)
+    }
+
+    fun testInvalidEscapeInKeyAndValue() {
+        doTest("{ \"bad\\q\": \"also\\xbad\" }", 2)
+
+        val descriptions = myFixture.doHighlighting().mapNotNull { it.description }
+        assertContainsElements(descriptions, "Invalid escape sequence: \\q", "Invalid escape sequence: \\x")
+    }
+
+    fun testEscapedBackslashIsNotAnEscape() {
+        doTest("{ a: \"C:\\\\qux\" }", 0)
+    }
+
+    fun testMultilineStringsAreNotChecked() {
+        doTest("{ a: \"\"\"raw \\q text\"\"\" }", 0)
+    }
+
+    fun testEscapeBackslashQuickFix() {
+        doTestWithQuickFix(
+            "{ a: \"bad<caret>\\q\" }",
+            "{ a: \"bad\\\\q\" }",
+            "Escape backslash"
+        )
+    }
+}
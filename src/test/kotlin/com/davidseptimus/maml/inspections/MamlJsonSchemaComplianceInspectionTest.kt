@@ -1,6 +1,8 @@
 package com.davidseptimus.maml.inspections
 
+import com.davidseptimus.maml.json.mapSchema
 import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.jetbrains.jsonSchema.ide.JsonSchemaService
 
 /**
  * Tests for JSON Schema compliance inspection, particularly for required fields validation.
@@ -38,9 +40,125 @@ class MamlJsonSchemaComplianceInspectionTest : BasePlatformTestCase() {
         })
     }
 
-    // Note: Testing with actual schema requires setting up JSON Schema mappings
-    // which is complex in unit tests. The inspection itself delegates to
-    // JsonSchemaComplianceChecker which is well-tested by JetBrains.
-    // For integration testing, schemas should be configured via:
-    // Settings > Languages & Frameworks > Schemas and DTDs > JSON Schema Mappings
-}
\ No newline at end of file
+    fun testReportsProblemsInNestedContainers() {
+        myFixture.mapSchema(SERVER_SCHEMA)
+        myFixture.configureByText(
+            "test.maml", """
+            {
+              name: "app"
+              server: { port: "oops" }
+              clients: [{ port: 1 }, { port: "two" }]
+              extra: 1
+            }
+        """.trimIndent()
+        )
+
+        val problems = schemaProblems()
+        assertEquals(problems.toString(), 3, problems.size)
+        assertEquals(2, problems.count { it.contains("Incompatible types") })
+        assertEquals(1, problems.count { it.contains("Property is not allowed") })
+    }
+
+    fun testRevalidatesEditedContainerAndKeepsOthers() {
+        myFixture.mapSchema(SERVER_SCHEMA)
+        myFixture.configureByText(
+            "test.maml", """
+            {
+              server: { port: <selection>"oops"</selection> }
+              clients: [{ port: "two" }]
+              extra: 1
+            }
+        """.trimIndent()
+        )
+        assertEquals(3, schemaProblems().size)
+
+        myFixture.type("8080")
+        val problems = schemaProblems()
+        assertEquals(problems.toString(), 2, problems.size)
+        assertEquals(1, problems.count { it.contains("Incompatible types") })
+        assertEquals(1, problems.count { it.contains("Property is not allowed") })
+    }
+
+    fun testReportsMissingPropertyAfterRemovingIt() {
+        myFixture.mapSchema(SERVER_SCHEMA)
+        myFixture.configureByText(
+            "test.maml", """
+            {
+              server: { <selection>port: 8080</selection> }
+            }
+        """.trimIndent()
+        )
+        assertEmpty(schemaProblems())
+
+        myFixture.type("host: localhost")
+        val problems = schemaProblems()
+        assertEquals(problems.toString(), 1, problems.size)
+        assertTrue(problems.single().contains("Missing required property"))
+    }
+
+    fun testMissingPropertyFixInsertsSchemaDefault() {
+        myFixture.mapSchema(
+            """
+            {
+              "type": "object",
+              "properties": { "port": { "type": "integer", "default": 8080 } },
+              "required": ["port"]
+            }
+        """.trimIndent()
+        )
+        myFixture.configureByText("test.maml", "<caret>{\n  name: \"app\"\n}")
+        myFixture.doHighlighting()
+
+        myFixture.launchAction(myFixture.findSingleIntention("Add required property 'port'"))
+        assertTrue(myFixture.editor.document.text, myFixture.editor.document.text.contains("port: 8080"))
+    }
+
+    fun testDisallowedPropertyFixRemovesProperty() {
+        myFixture.mapSchema(SERVER_SCHEMA)
+        myFixture.configureByText("test.maml", "{\n  name: \"app\"\n  <caret>extra: 1\n}")
+        myFixture.doHighlighting()
+
+        myFixture.launchAction(myFixture.findSingleIntention("Remove disallowed property 'extra'"))
+        assertFalse(myFixture.editor.document.text.contains("extra"))
+        assertEmpty(schemaProblems())
+    }
+
+    fun testCompilableSchemaIsValidatedIncrementallyWhileEditing() {
+        myFixture.mapSchema(SERVER_SCHEMA)
+        val file = myFixture.configureByText("test.maml", "{}")
+        val schema = JsonSchemaService.Impl.get(project).getSchemaObject(file)
+        assertNotNull(schema)
+        // The incremental tests above use a schema that compiles, so on-the-fly runs must not switch to it
+        assertNotNull(MamlCompiledSchema.compile(schema!!))
+    }
+
+    private fun schemaProblems(): List<String> =
+        myFixture.doHighlighting()
+            .filter { it.inspectionToolId == "MamlJsonSchemaCompliance" }
+            .mapNotNull { it.description }
+
+    companion object {
+        private val SERVER_DEFINITION = """
+            {
+              "type": "object",
+              "properties": {
+                "port": { "type": "integer" },
+                "host": { "type": "string" }
+              },
+              "required": ["port"]
+            }
+        """.trimIndent()
+
+        private val SERVER_SCHEMA = """
+            {
+              "type": "object",
+              "properties": {
+                "name": { "type": "string" },
+                "server": $SERVER_DEFINITION,
+                "clients": { "type": "array", "items": $SERVER_DEFINITION }
+              },
+              "additionalProperties": false
+            }
+        """.trimIndent()
+    }
+}
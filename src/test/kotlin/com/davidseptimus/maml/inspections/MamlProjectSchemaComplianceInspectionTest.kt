@@ -0,0 +1,56 @@
+package com.davidseptimus.maml.inspections
+
+import com.davidseptimus.maml.json.mapSchema
+import com.intellij.analysis.AnalysisScope
+import com.intellij.codeInspection.CommonProblemDescriptor
+import com.intellij.codeInspection.ex.GlobalInspectionToolWrapper
+import com.intellij.testFramework.InspectionTestUtil
+import com.intellij.testFramework.createGlobalContextForTool
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+class MamlProjectSchemaComplianceInspectionTest : BasePlatformTestCase() {
+
+    fun testReportsProblemsOfAllFiles() {
+        myFixture.mapSchema("""{ "type": "object", "properties": { "port": { "type": "integer" } } }""")
+        myFixture.addFileToProject("valid.maml", "{ port: 80 }")
+        myFixture.addFileToProject("invalid.maml", "{ port: \"80\" }")
+        myFixture.addFileToProject("nested/invalid.maml", "{ port: true }")
+
+        val problems = runInspection(MamlProjectSchemaComplianceInspection())
+
+        assertEquals(problems.toString(), 2, problems.size)
+        assertTrue(problems.toString(), problems.all { it.descriptionTemplate.contains("Incompatible types") })
+    }
+
+    fun testValidatesManyFilesAgainstOneSchema() {
+        myFixture.mapSchema("""{ "type": "object", "required": ["id"] }""")
+        repeat(40) { myFixture.addFileToProject("file$it.maml", if (it % 4 == 0) "{ name: \"x\" }" else "{ id: $it }") }
+
+        val problems = runInspection(MamlProjectSchemaComplianceInspection())
+
+        assertEquals(problems.toString(), 10, problems.size)
+        assertTrue(problems.toString(), problems.all { it.descriptionTemplate.contains("Missing required property") })
+    }
+
+    fun testCaseInsensitiveEnumOption() {
+        myFixture.mapSchema("""{ "type": "object", "properties": { "level": { "enum": ["debug", "info"] } } }""")
+        myFixture.addFileToProject("config.maml", "{ level: \"INFO\" }")
+
+        assertSize(1, runInspection(MamlProjectSchemaComplianceInspection()))
+        assertEmpty(runInspection(MamlProjectSchemaComplianceInspection().apply { caseInsensitiveEnum = true }))
+    }
+
+    fun testNoProblemsWithoutSchema() {
+        myFixture.addFileToProject("config.maml", "{ port: \"80\" }")
+
+        assertEmpty(runInspection(MamlProjectSchemaComplianceInspection()))
+    }
+
+    private fun runInspection(inspection: MamlProjectSchemaComplianceInspection): Collection<CommonProblemDescriptor> {
+        val wrapper = GlobalInspectionToolWrapper(inspection)
+        val scope = AnalysisScope(project)
+        val context = createGlobalContextForTool(scope, project, listOf(wrapper))
+        InspectionTestUtil.runTool(wrapper, scope, context)
+        return context.getPresentation(wrapper).problemDescriptors
+    }
+}
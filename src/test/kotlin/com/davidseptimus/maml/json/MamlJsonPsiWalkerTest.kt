@@ -0,0 +1,73 @@
+package com.davidseptimus.maml.json
+
+import com.davidseptimus.maml.lang.psi.MamlKey
+import com.davidseptimus.maml.lang.psi.MamlValue
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.psi.PsiElement
+import com.intellij.psi.util.parentOfType
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+
+class MamlJsonPsiWalkerTest : BasePlatformTestCase() {
+
+    private fun valueAtCaret(): PsiElement =
+        myFixture.file.findElementAt(myFixture.caretOffset)!!.parentOfType<MamlValue>()!!
+
+    private fun pointer(element: PsiElement, forceLastTransition: Boolean): String? =
+        MamlJsonPsiWalker.findPosition(element, forceLastTransition).toJsonPointer()
+
+    fun testPositionOfValueInArrayOfObjects() {
+        myFixture.configureByText(
+            "test.maml", """
+            {
+              servers: [
+                { host: "a" }
+                { host: "<caret>b" }
+              ]
+            }
+        """.trimIndent()
+        )
+
+        val value = valueAtCaret()
+        assertEquals("/servers/1/host", pointer(value, true))
+        assertEquals("/servers/1", pointer(value, false))
+        assertEquals("/servers/1", pointer(value.parentOfType<MamlValue>()!!, true))
+    }
+
+    fun testPositionOfKey() {
+        myFixture.configureByText("test.maml", "{ outer: { \"in<caret>ner\": 1 } }")
+
+        val key = myFixture.file.findElementAt(myFixture.caretOffset)!!.parentOfType<MamlKey>()!!
+        assertEquals("/outer/inner", pointer(key, false))
+    }
+
+    fun testPositionUpdatedAfterEdit() {
+        myFixture.configureByText("test.maml", "[1, 2, { name: \"<caret>x\" }]")
+        assertEquals("/2/name", pointer(valueAtCaret(), true))
+
+        WriteCommandAction.runWriteCommandAction(project) {
+            myFixture.editor.document.insertString(1, "0, ")
+        }
+        PsiDocumentManager.getInstance(project).commitAllDocuments()
+
+        assertEquals("/3/name", pointer(valueAtCaret(), true))
+    }
+
+    fun testAdaptersSharedUntilFileChanges() {
+        myFixture.configureByText("test.maml", "{ servers: [{ host: \"<caret>a\" }] }")
+
+        val root = MamlJsonPsiWalker.getRoots(myFixture.file).single()
+        val adapter = MamlJsonPsiWalker.createValueAdapter(root)!!
+        assertSame(adapter, MamlJsonPsiWalker.createValueAdapter(root))
+        assertSame(adapter, MamlJsonPsiWalker.createValueAdapter((root as MamlValue).`object`!!))
+        val servers = adapter.asObject!!.propertyList.single()
+        assertSame(servers.values.single(), servers.values.single())
+        assertSame(servers, MamlJsonPsiWalker.getParentPropertyAdapter(servers.delegate))
+
+        myFixture.type("b")
+        PsiDocumentManager.getInstance(project).commitAllDocuments()
+
+        val newRoot = MamlJsonPsiWalker.getRoots(myFixture.file).single()
+        assertNotSame(adapter, MamlJsonPsiWalker.createValueAdapter(newRoot))
+    }
+}
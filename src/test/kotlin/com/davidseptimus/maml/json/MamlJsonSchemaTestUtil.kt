@@ -0,0 +1,30 @@
+package com.davidseptimus.maml.json
+
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.testFramework.ExtensionTestUtil
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture
+import com.jetbrains.jsonSchema.extension.JsonSchemaFileProvider
+import com.jetbrains.jsonSchema.extension.JsonSchemaProviderFactory
+import com.jetbrains.jsonSchema.extension.SchemaType
+import com.jetbrains.jsonSchema.ide.JsonSchemaService
+
+/**
+ * Adds `schema.json` with [schemaText] to the test project and maps it to every `.maml` file,
+ * replacing all other schema providers until the end of the test.
+ */
+fun CodeInsightTestFixture.mapSchema(schemaText: String): VirtualFile {
+    val schemaFile = addFileToProject("schema.json", schemaText).virtualFile
+    val provider = object : JsonSchemaFileProvider {
+        override fun isAvailable(file: VirtualFile): Boolean = file.extension == "maml"
+        override fun getName(): String = "MAML test schema"
+        override fun getSchemaFile(): VirtualFile = schemaFile
+        override fun getSchemaType(): SchemaType = SchemaType.userSchema
+    }
+    val factory = object : JsonSchemaProviderFactory {
+        override fun getProviders(project: Project): List<JsonSchemaFileProvider> = listOf(provider)
+    }
+    ExtensionTestUtil.maskExtensions(JsonSchemaProviderFactory.EP_NAME, listOf(factory), testRootDisposable)
+    JsonSchemaService.Impl.get(project).reset()
+    return schemaFile
+}
@@ -1,10 +1,13 @@
 package com.davidseptimus.maml.lang
 
+import com.davidseptimus.maml.highlighting.MamlHighlightingLexer
 import com.davidseptimus.maml.lang.psi.MamlTypes
 import com.intellij.lexer.Lexer
+import com.intellij.psi.StringEscapesTokenTypes
 import com.intellij.psi.TokenType
 import com.intellij.psi.tree.IElementType
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
 import org.junit.Test
 
 class MamlLexerTest {
@@ -127,6 +130,99 @@ class MamlLexerTest {
         doTest("\"\"\"\"\"\"", MamlTypes.MULTILINE_STRING to "\"\"\"\"\"\"")
     }
 
+    @Test
+    fun `test unterminated multiline string runs to end of input`() {
+        doTest("[\"\"\"open\n]",
+            MamlTypes.LBRACKET to "[",
+            MamlTypes.MULTILINE_STRING to "\"\"\"open\n]")
+    }
+
+    @Test
+    fun `test adjacent multiline strings are separate tokens`() {
+        doTest("\"\"\"a\"\"\"\"\"\"b\"\"\"",
+            MamlTypes.MULTILINE_STRING to "\"\"\"a\"\"\"",
+            MamlTypes.MULTILINE_STRING to "\"\"\"b\"\"\"")
+    }
+
+    // Multiline String Chunk Tests
+
+    private fun highlightingTokens(text: String, initialState: Int = MamlLexer.YYINITIAL): List<Pair<IElementType, String>> {
+        val lexer = MamlHighlightingLexer()
+        lexer.start(text, 0, text.length, initialState)
+
+        val tokens = mutableListOf<Pair<IElementType, String>>()
+        while (lexer.tokenType != null) {
+            tokens.add(lexer.tokenType!! to lexer.tokenText)
+            lexer.advance()
+        }
+        return tokens
+    }
+
+    @Test
+    fun `test highlighting lexer splits multiline string into lines`() {
+        assertEquals(
+            listOf(
+                MamlTypes.MULTILINE_STRING to "\"\"\"",
+                MamlTypes.MULTILINE_STRING to "\n",
+                MamlTypes.MULTILINE_STRING to "line \"one\"",
+                MamlTypes.MULTILINE_STRING to "\n",
+                MamlTypes.MULTILINE_STRING to "line two",
+                MamlTypes.MULTILINE_STRING to "\n",
+                MamlTypes.MULTILINE_STRING to "\"\"\"",
+            ),
+            highlightingTokens("\"\"\"\nline \"one\"\nline two\n\"\"\"")
+        )
+    }
+
+    @Test
+    fun `test highlighting lexer keeps escaped triple quote in content`() {
+        assertEquals(
+            listOf(
+                MamlTypes.MULTILINE_STRING to "\"\"\"",
+                MamlTypes.MULTILINE_STRING to "a \\\"\"\" b",
+                MamlTypes.MULTILINE_STRING to "\"\"\"",
+            ),
+            highlightingTokens("\"\"\"a \\\"\"\" b\"\"\"")
+        )
+    }
+
+    @Test
+    fun `test highlighting lexer restarts inside multiline string`() {
+        assertEquals(
+            listOf(
+                MamlTypes.MULTILINE_STRING to "more text",
+                MamlTypes.MULTILINE_STRING to "\n",
+                MamlTypes.MULTILINE_STRING to "\"\"\"",
+                MamlTypes.COMMA to ",",
+                TokenType.WHITE_SPACE to " ",
+                MamlTypes.IDENTIFIER to "next",
+            ),
+            highlightingTokens("more text\n\"\"\", next", MamlLexer.IN_MULTILINE_STRING)
+        )
+    }
+
+    @Test
+    fun `test highlighting lexer states are restartable`() {
+        val lexer = MamlHighlightingLexer()
+        assertEquals(MamlLexer.YYINITIAL, lexer.startState)
+        assertTrue(lexer.isRestartableState(MamlLexer.YYINITIAL))
+        assertTrue(lexer.isRestartableState(MamlLexer.IN_MULTILINE_STRING))
+    }
+
+    @Test
+    fun `test parsing lexer merges multiline string chunks`() {
+        doTest("{ text: \"\"\"\nfirst\nsecond\n\"\"\", next: 1 }",
+            MamlTypes.LBRACE to "{",
+            MamlTypes.IDENTIFIER to "text",
+            MamlTypes.COLON to ":",
+            MamlTypes.MULTILINE_STRING to "\"\"\"\nfirst\nsecond\n\"\"\"",
+            MamlTypes.COMMA to ",",
+            MamlTypes.IDENTIFIER to "next",
+            MamlTypes.COLON to ":",
+            MamlTypes.NUMBER to "1",
+            MamlTypes.RBRACE to "}")
+    }
+
     // Identifier Tests
 
     @Test
@@ -350,11 +446,41 @@ class MamlLexerTest {
     @Test
     fun `test quoted key vs identifier`() {
         doTest("\"key\": value",
-            MamlTypes.STRING to "\"key\"",
+            MamlTypes.KEY_STRING to "\"key\"",
             MamlTypes.COLON to ":",
             MamlTypes.IDENTIFIER to "value")
     }
 
+    @Test
+    fun `test quoted key with whitespace before colon`() {
+        doTest("{ \"a\" : \"b\",\n  \"c\"\n  : \"d\" }",
+            MamlTypes.LBRACE to "{",
+            MamlTypes.KEY_STRING to "\"a\"",
+            MamlTypes.COLON to ":",
+            MamlTypes.STRING to "\"b\"",
+            MamlTypes.COMMA to ",",
+            MamlTypes.KEY_STRING to "\"c\"",
+            MamlTypes.COLON to ":",
+            MamlTypes.STRING to "\"d\"",
+            MamlTypes.RBRACE to "}")
+    }
+
+    @Test
+    fun `test quoted key containing escaped quote and colon`() {
+        doTest("\"a\\\":b\": \"c\"",
+            MamlTypes.KEY_STRING to "\"a\\\":b\"",
+            MamlTypes.COLON to ":",
+            MamlTypes.STRING to "\"c\"")
+    }
+
+    @Test
+    fun `test string without colon is not a key`() {
+        doTest("{ \"a\" }",
+            MamlTypes.LBRACE to "{",
+            MamlTypes.STRING to "\"a\"",
+            MamlTypes.RBRACE to "}")
+    }
+
     // Whitespace Tests
 
     @Test
@@ -432,4 +558,69 @@ class MamlLexerTest {
             MamlTypes.COLON to ":",
             MamlTypes.COMMA to ",")
     }
-}
\ No newline at end of file
+
+    // String Escape Layer Tests
+
+    @Test
+    fun `test highlighting lexer splits valid escapes out of strings`() {
+        assertEquals(
+            listOf(
+                MamlTypes.STRING to "\"a",
+                StringEscapesTokenTypes.VALID_STRING_ESCAPE_TOKEN to "\\t",
+                MamlTypes.STRING to "b ",
+                StringEscapesTokenTypes.VALID_STRING_ESCAPE_TOKEN to "\\u00e9",
+                StringEscapesTokenTypes.VALID_STRING_ESCAPE_TOKEN to "\\\"",
+                MamlTypes.STRING to "\"",
+            ),
+            highlightingTokens("\"a\\tb \\u00e9\\\"\"")
+        )
+    }
+
+    @Test
+    fun `test highlighting lexer marks invalid escapes`() {
+        assertEquals(
+            listOf(
+                MamlTypes.STRING to "\"bad",
+                StringEscapesTokenTypes.INVALID_CHARACTER_ESCAPE_TOKEN to "\\q",
+                MamlTypes.STRING to "\"",
+            ),
+            highlightingTokens("\"bad\\q\"")
+        )
+    }
+
+    @Test
+    fun `test escaped backslash does not start another escape`() {
+        assertEquals(
+            listOf(
+                MamlTypes.STRING to "\"",
+                StringEscapesTokenTypes.VALID_STRING_ESCAPE_TOKEN to "\\\\",
+                MamlTypes.STRING to "q\"",
+            ),
+            highlightingTokens("\"\\\\q\"")
+        )
+    }
+
+    @Test
+    fun `test string without escapes stays a single token`() {
+        assertEquals(
+            listOf(
+                MamlTypes.LBRACE to "{",
+                MamlTypes.STRING to "\"plain\"",
+                MamlTypes.RBRACE to "}",
+            ),
+            highlightingTokens("{\"plain\"}")
+        )
+    }
+
+    @Test
+    fun `test multiline strings are not split on backslashes`() {
+        assertEquals(
+            listOf(
+                MamlTypes.MULTILINE_STRING to "\"\"\"",
+                MamlTypes.MULTILINE_STRING to "a\\qb",
+                MamlTypes.MULTILINE_STRING to "\"\"\"",
+            ),
+            highlightingTokens("\"\"\"a\\qb\"\"\"")
+        )
+    }
+}
@@ -1,7 +1,11 @@
 package com.davidseptimus.maml.lang
 
 import com.davidseptimus.maml.lang.psi.*
+import com.intellij.lang.ASTNode
 import com.intellij.psi.PsiErrorElement
+import com.intellij.psi.tree.IElementType
+import com.intellij.psi.tree.IReparseableElementType
+import com.intellij.psi.tree.IReparseableLeafElementType
 import com.intellij.psi.util.PsiTreeUtil
 import com.intellij.testFramework.ParsingTestCase
 import org.junit.Test
@@ -514,4 +518,100 @@ class MamlParserTest : ParsingTestCase("", "maml", MamlParserDefinition()) {
         val incompleteKVs = PsiTreeUtil.findChildrenOfType(file, MamlIncompleteKeyValue::class.java)
         assertEquals("Expected 1 incomplete key-value", 1, incompleteKVs.size)
     }
-}
\ No newline at end of file
+
+    // Reparse Tests
+
+    private fun isReparseable(containerType: IElementType, text: String): Boolean {
+        val type = containerType as IReparseableElementType
+        val currentNode = PsiTreeUtil.findChildrenOfAnyType(parse("{ a: [] }"), MamlObject::class.java, MamlArray::class.java)
+            .first { it.node.elementType == containerType }
+            .node
+        return type.isReparseable(currentNode, text, MamlLanguage, project)
+    }
+
+    @Test
+    fun testObjectAndArrayTypesAreReparseable() {
+        assertTrue("OBJECT should be reparseable", MamlTypes.OBJECT is IReparseableElementType)
+        assertTrue("ARRAY should be reparseable", MamlTypes.ARRAY is IReparseableElementType)
+    }
+
+    @Test
+    fun testBalancedObjectIsReparseable() {
+        assertTrue(isReparseable(MamlTypes.OBJECT, "{ a: 1, b: [1, 2], c: { d: \"}\" } }"))
+        assertTrue(isReparseable(MamlTypes.OBJECT, "{}"))
+    }
+
+    @Test
+    fun testBalancedArrayIsReparseable() {
+        assertTrue(isReparseable(MamlTypes.ARRAY, "[1, { a: \"]\" }, [true]]"))
+        assertTrue(isReparseable(MamlTypes.ARRAY, "[\"\"\"\n]\n\"\"\"]"))
+    }
+
+    @Test
+    fun testUnbalancedContainerIsNotReparseable() {
+        assertFalse(isReparseable(MamlTypes.OBJECT, "{ a: { b: 1 }"))
+        assertFalse(isReparseable(MamlTypes.OBJECT, "{ a: [1 }"))
+        assertFalse(isReparseable(MamlTypes.ARRAY, "[1, 2]]"))
+    }
+
+    @Test
+    fun testMultipleContainersAreNotReparseable() {
+        assertFalse(isReparseable(MamlTypes.OBJECT, "{ a: 1 } { b: 2 }"))
+        assertFalse(isReparseable(MamlTypes.ARRAY, "[1] # trailing"))
+    }
+
+    @Test
+    fun testWrongContainerKindIsNotReparseable() {
+        assertFalse(isReparseable(MamlTypes.OBJECT, "[1, 2]"))
+        assertFalse(isReparseable(MamlTypes.ARRAY, "{ a: 1 }"))
+    }
+
+    @Test
+    fun testUnterminatedStringIsNotReparseable() {
+        assertFalse(isReparseable(MamlTypes.OBJECT, "{ a: \"value }"))
+        assertFalse(isReparseable(MamlTypes.ARRAY, "[\"\"\"text ]"))
+    }
+
+    private fun reparseLeaf(text: String, newText: String): ASTNode? {
+        val leaf = parse(text).node.findLeafElementAt(0)!!
+        @Suppress("UNCHECKED_CAST")
+        val type = leaf.elementType as IReparseableLeafElementType<ASTNode>
+        return type.reparseLeaf(leaf, newText)
+    }
+
+    @Test
+    fun testStringLeafIsReparsedWhenDelimitersAreKept() {
+        val reparsed = reparseLeaf("\"value\"", "\"new value with {braces}\"")
+        assertNotNull("Expected the string leaf to be reparsed", reparsed)
+        assertEquals(MamlTypes.STRING, reparsed!!.elementType)
+        assertEquals("\"new value with {braces}\"", reparsed.text)
+    }
+
+    @Test
+    fun testKeyStringLeafIsReparsedWhenDelimitersAreKept() {
+        val root = parse("{ \"key\": 1 }").node
+        val leaf = root.findLeafElementAt(2)!!
+        assertEquals(MamlTypes.KEY_STRING, leaf.elementType)
+
+        @Suppress("UNCHECKED_CAST")
+        val type = leaf.elementType as IReparseableLeafElementType<ASTNode>
+        val reparsed = type.reparseLeaf(leaf, "\"new key\"")
+        assertNotNull("Expected the key string leaf to be reparsed", reparsed)
+        assertEquals(MamlTypes.KEY_STRING, reparsed!!.elementType)
+    }
+
+    @Test
+    fun testMultilineStringLeafIsReparsedWhenDelimitersAreKept() {
+        val reparsed = reparseLeaf("\"\"\"\nline\n\"\"\"", "\"\"\"\nline \"quoted\"\nnext\n\"\"\"")
+        assertNotNull("Expected the multiline string leaf to be reparsed", reparsed)
+        assertEquals(MamlTypes.MULTILINE_STRING, reparsed!!.elementType)
+    }
+
+    @Test
+    fun testStringLeafIsNotReparsedWhenDelimitersChange() {
+        assertNull(reparseLeaf("\"value\"", "\"val\"ue\""))
+        assertNull(reparseLeaf("\"value\"", "\"value"))
+        assertNull(reparseLeaf("\"\"\"text\"\"\"", "\"\"\"text\"\""))
+        assertNull(reparseLeaf("\"\"\"text\"\"\"", "\"\"\"te\"\"\"xt\"\"\""))
+    }
+}
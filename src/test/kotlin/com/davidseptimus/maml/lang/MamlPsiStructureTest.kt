@@ -1,7 +1,13 @@
 package com.davidseptimus.maml.lang
 
+import com.davidseptimus.maml.lang.parser.MamlParser
 import com.davidseptimus.maml.lang.psi.*
+import com.intellij.lang.ASTNode
+import com.intellij.lang.PsiBuilderFactory
 import com.intellij.psi.PsiElement
+import com.intellij.psi.impl.DebugUtil
+import com.intellij.psi.tree.IElementType
+import com.intellij.psi.tree.IReparseableElementType
 import com.intellij.psi.util.PsiTreeUtil
 import com.intellij.testFramework.ParsingTestCase
 import org.junit.Test
@@ -510,4 +516,89 @@ class MamlPsiStructureTest : ParsingTestCase("", "maml", MamlParserDefinition())
         assertTrue("Outer object should contain array",
             PsiTreeUtil.isAncestor(outerObj!!, array!!, true))
     }
-}
\ No newline at end of file
+
+    // Reparse Tests
+
+    /**
+     * Parses [text] the same way the platform does when a reparseable container is reparsed on its own.
+     */
+    private fun reparse(type: IElementType, text: String): ASTNode {
+        val builder = PsiBuilderFactory.getInstance().createBuilder(MamlParserDefinition(), MamlLexerAdapter(), text)
+        return MamlParser().parse(type, builder)
+    }
+
+    private fun assertReparseMatchesFullParse(fileText: String, element: PsiElement) {
+        val node = element.node
+        val reparsed = reparse(node.elementType, node.text)
+        assertEquals(
+            "Reparsed ${node.elementType} should be identical to the full parse of:\n$fileText",
+            DebugUtil.nodeTreeToString(node, false),
+            DebugUtil.nodeTreeToString(reparsed, false)
+        )
+    }
+
+    @Test
+    fun testReparsedObjectMatchesFullParse() {
+        val text = """
+            {
+              # leading comment
+              name: "John", "age": 30
+              tags: ["a", "b"]
+              nested: { deep: { deeper: true } }
+            }
+        """.trimIndent()
+        val file = parse(text)
+
+        PsiTreeUtil.findChildrenOfType(file, MamlObject::class.java).forEach {
+            assertReparseMatchesFullParse(text, it)
+        }
+    }
+
+    @Test
+    fun testReparsedArrayMatchesFullParse() {
+        val text = """
+            [
+              1, 2.5, "three"
+              [null, false]
+              { key: [] }
+              ""${'"'}
+              multi
+              ""${'"'}
+            ]
+        """.trimIndent()
+        val file = parse(text)
+
+        PsiTreeUtil.findChildrenOfType(file, MamlArray::class.java).forEach {
+            assertReparseMatchesFullParse(text, it)
+        }
+    }
+
+    @Test
+    fun testReparsedContainerWithErrorsMatchesFullParse() {
+        val text = "{ outer: { incomplete, valid: 1, bad: fa }, list: [1 2, tru] }"
+        val file = parse(text)
+
+        PsiTreeUtil.findChildrenOfAnyType(file, MamlObject::class.java, MamlArray::class.java).forEach {
+            assertReparseMatchesFullParse(text, it)
+        }
+    }
+
+    @Test
+    fun testReparsedContainerAfterEditMatchesFullParse() {
+        val before = "{ a: { b: 1 }, c: [1, 2] }"
+        val after = "{ a: { b: 1, added: \"value\" }, c: [1, 2] }"
+        val inner = PsiTreeUtil.findChildrenOfType(parse(before), MamlObject::class.java).last()
+        val editedText = "{ b: 1, added: \"value\" }"
+        assertTrue(
+            "Edit should be reparseable within the inner object",
+            (inner.node.elementType as IReparseableElementType)
+                .isReparseable(inner.node, editedText, MamlLanguage, project)
+        )
+
+        val fullParse = PsiTreeUtil.findChildrenOfType(parse(after), MamlObject::class.java).last()
+        assertEquals(
+            DebugUtil.nodeTreeToString(fullParse.node, false),
+            DebugUtil.nodeTreeToString(reparse(MamlTypes.OBJECT, editedText), false)
+        )
+    }
+}
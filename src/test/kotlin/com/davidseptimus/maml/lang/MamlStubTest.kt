@@ -0,0 +1,69 @@
+package com.davidseptimus.maml.lang
+
+import com.davidseptimus.maml.lang.psi.MamlKeyValue
+import com.davidseptimus.maml.lang.psi.stubs.MamlKeyValueStub
+import com.davidseptimus.maml.lang.psi.stubs.MamlKeyValueStubIndex
+import com.davidseptimus.maml.navigation.MamlGotoSymbolContributor
+import com.intellij.navigation.NavigationItem
+import com.intellij.psi.impl.source.PsiFileImpl
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.psi.stubs.StubElement
+import com.intellij.psi.stubs.StubIndex
+import com.intellij.testFramework.fixtures.BasePlatformTestCase
+import com.intellij.util.CommonProcessors
+import com.intellij.util.indexing.FindSymbolParameters
+
+class MamlStubTest : BasePlatformTestCase() {
+
+    private fun stubKeyNames(stub: StubElement<*>): List<String> {
+        return stub.childrenStubs.flatMap { child ->
+            listOfNotNull((child as? MamlKeyValueStub)?.name) + stubKeyNames(child)
+        }
+    }
+
+    fun testStubsHoldKeysUpToMaxDepth() {
+        val file = myFixture.configureByText(
+            "test.maml",
+            """
+            {
+              a: { b: { c: { d: 1 } } }
+              "quoted": [{ e: 2 }]
+            }
+            """.trimIndent()
+        ) as PsiFileImpl
+
+        val stubTree = FILE.builder.buildStubTree(file)
+
+        assertEquals(listOf("a", "b", "c", "quoted", "e"), stubKeyNames(stubTree))
+    }
+
+    fun testKeyValueNameIsReadFromStub() {
+        val file = myFixture.addFileToProject("other.maml", "{ name: \"app\", nested: { port: 8080 } }") as PsiFileImpl
+
+        val keyValues = StubIndex.getElements(
+            MamlKeyValueStubIndex.KEY,
+            "port",
+            project,
+            GlobalSearchScope.projectScope(project),
+            MamlKeyValue::class.java
+        )
+
+        assertEquals(listOf("port"), keyValues.map { it.name })
+        assertNull("The file should not be parsed to read key names", file.treeElement)
+    }
+
+    fun testGotoSymbolFindsKeysInOtherFiles() {
+        myFixture.addFileToProject("a.maml", "{ shared: 1 }")
+        myFixture.addFileToProject("b.maml", "{ nested: { shared: 3 } }")
+
+        val processor = CommonProcessors.CollectProcessor<NavigationItem>()
+        MamlGotoSymbolContributor().processElementsWithName(
+            "shared",
+            processor,
+            FindSymbolParameters.wrap("shared", GlobalSearchScope.projectScope(project))
+        )
+
+        val keyValues = processor.results.filterIsInstance<MamlKeyValue>()
+        assertEquals(setOf("a.maml", "b.maml"), keyValues.map { it.containingFile.name }.toSet())
+    }
+}